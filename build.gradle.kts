@@ -1,6 +1,7 @@
 plugins {
     `java-library`
     `maven-publish`
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "net.goldenstack.minestom_ca"
@@ -32,12 +33,20 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.9.2")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.9.2")
     testImplementation(minestom)
+
+    jmh(minestom)
 }
 
 tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion = "1.37"
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+}
+
 configure<JavaPluginExtension> {
     withSourcesJar()
 }
@@ -0,0 +1,57 @@
+package net.goldenstack.minestom_ca.benchmark;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.lang.Program;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+
+import java.nio.file.Path;
+
+/**
+ * Shared setup for the benchmarks.
+ */
+final class Benchmarks {
+    private static boolean initialized = false;
+
+    static synchronized void initServer() {
+        if (initialized) return;
+        MinecraftServer.init();
+        initialized = true;
+    }
+
+    /**
+     * Creates an instance with a stone floor up to y=10 and loads the chunks within {@code range} of the origin.
+     */
+    static InstanceContainer createInstance(int range) {
+        initServer();
+        InstanceContainer instance = MinecraftServer.getInstanceManager().createInstanceContainer();
+        instance.setGenerator(unit -> unit.modifier().fillHeight(0, 10, Block.STONE));
+        instance.enableAutoChunkLoad(false);
+        for (int x = -range; x < range; x++) {
+            for (int z = -range; z < range; z++) {
+                instance.loadChunk(x, z).join();
+            }
+        }
+        return instance;
+    }
+
+    static void loadChunks(Automata.World world, int range) {
+        for (int x = -range; x < range; x++) {
+            for (int z = -range; z < range; z++) {
+                world.handleChunkLoad(x, z);
+            }
+        }
+    }
+
+    static Program program(String name) {
+        return Program.fromFile(Path.of("rules", name));
+    }
+
+    static Automata.CellRule.State state(Automata.CellRule rules, String name) {
+        for (Automata.CellRule.State state : rules.states()) {
+            if (state.name().equals(name)) return state;
+        }
+        throw new IllegalArgumentException("Unknown state: " + name);
+    }
+}
@@ -0,0 +1,73 @@
+package net.goldenstack.minestom_ca.benchmark;
+
+import net.goldenstack.minestom_ca.lang.Program;
+import net.goldenstack.minestom_ca.lang.ProgramCache;
+import net.goldenstack.minestom_ca.lang.Scanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scanning and parsing of large rule files, built by repeating the sample rule files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    private static final List<String> SOURCES = List.of("wireworld", "piston", "game_of_life");
+
+    @Param({"1000", "10000"})
+    public int lines;
+
+    private List<String> sourceLines;
+    private String source;
+    private byte[] compiled;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> sample = new ArrayList<>();
+        for (String name : SOURCES) sample.addAll(Files.readAllLines(Path.of("rules", name)));
+        List<String> repeated = new ArrayList<>(lines + sample.size());
+        while (repeated.size() < lines) repeated.addAll(sample);
+        this.sourceLines = List.copyOf(repeated.subList(0, lines));
+        this.source = String.join("\n", this.sourceLines);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ProgramCache.write(Program.fromString(source), new DataOutputStream(bytes));
+        this.compiled = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public int scan() {
+        int count = 0;
+        for (String line : sourceLines) count += new Scanner(line).scanTokens().size();
+        return count;
+    }
+
+    @Benchmark
+    public Program parse() {
+        return Program.fromString(source);
+    }
+
+    @Benchmark
+    public Program parseReader() {
+        return Program.fromReader(new StringReader(source));
+    }
+
+    @Benchmark
+    public Program readCompiled() throws IOException {
+        return ProgramCache.read(new DataInputStream(new ByteArrayInputStream(compiled)));
+    }
+}
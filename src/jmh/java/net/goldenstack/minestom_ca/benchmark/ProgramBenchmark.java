@@ -0,0 +1,120 @@
+package net.goldenstack.minestom_ca.benchmark;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.minestom.server.instance.block.Block;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the interpretation of rule files, isolated from any world storage.
+ * <p>
+ * Every cell of a random 16x16x16 torus is evaluated once per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgramBenchmark {
+    private static final int SIZE = 16;
+
+    @Param({"wireworld", "piston", "game_of_life"})
+    public String program;
+
+    private Automata.CellRule rule;
+    private GridQuery query;
+
+    @Setup
+    public void setup() {
+        this.rule = Benchmarks.program(program).makeCellRule();
+        List<Automata.CellRule.State> states = new ArrayList<>(rule.states());
+        Map<Automata.CellRule.State, Integer> mapping = new HashMap<>();
+        for (int i = 0; i < states.size(); i++) mapping.put(states.get(i), i + 1);
+        rule.init(mapping);
+        this.query = new GridQuery(mapping, states.size() + 1, new Random(42));
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    query.move(x, y, z);
+                    blackhole.consume(rule.process(query));
+                }
+            }
+        }
+    }
+
+    /**
+     * A read-only query over random values, wrapping around the grid borders.
+     */
+    static final class GridQuery implements Automata.Query {
+        private static final int[] BLOCKS = {Block.AIR.stateId(), Block.WHITE_WOOL.stateId(), Block.STONE.stateId()};
+
+        private final Map<Automata.CellRule.State, Integer> mapping;
+        private final long[][] values;
+        private int x, y, z;
+
+        GridQuery(Map<Automata.CellRule.State, Integer> mapping, int indexCount, Random random) {
+            this.mapping = mapping;
+            this.values = new long[indexCount][SIZE * SIZE * SIZE];
+            for (int i = 0; i < values[0].length; i++) {
+                values[0][i] = BLOCKS[random.nextInt(BLOCKS.length)];
+                for (int index = 1; index < indexCount; index++) values[index][i] = random.nextInt(4);
+            }
+        }
+
+        void move(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private int cell(int x, int y, int z) {
+            return (((this.y + y) & (SIZE - 1)) * SIZE + ((this.z + z) & (SIZE - 1))) * SIZE + ((this.x + x) & (SIZE - 1));
+        }
+
+        @Override
+        public int stateIndex(Automata.CellRule.State state) {
+            return mapping.get(state);
+        }
+
+        @Override
+        public long state(int index) {
+            return values[index][cell(0, 0, 0)];
+        }
+
+        @Override
+        public long stateAt(int x, int y, int z, int index) {
+            return values[index][cell(x, y, z)];
+        }
+
+        @Override
+        public long[] queryIndexes() {
+            return queryIndexes(0, 0, 0);
+        }
+
+        @Override
+        public long[] queryIndexes(int x, int y, int z) {
+            final int cell = cell(x, y, z);
+            long[] indexes = new long[values.length];
+            for (int i = 0; i < values.length; i++) indexes[i] = values[i][cell];
+            return indexes;
+        }
+
+        @Override
+        public Map<String, Long> queryNames(int x, int y, int z) {
+            return Map.of();
+        }
+
+        @Override
+        public long random() {
+            return cell(0, 0, 0) * 0x9E3779B97F4A7C15L;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package net.goldenstack.minestom_ca.benchmark;
+
+import net.goldenstack.minestom_ca.backends.lazy.HashedWheelTimer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scheduling a number of tasks over the whole wheel and ticking until all of them fired.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimerBenchmark {
+    private static final int WHEEL_SIZE = 255;
+
+    @Param({"10000", "1000000"})
+    public int tasks;
+
+    @Benchmark
+    public int scheduleAndTick() {
+        HashedWheelTimer<Integer> timer = new HashedWheelTimer<>(WHEEL_SIZE);
+        for (int i = 0; i < tasks; i++) {
+            final Integer value = i;
+            timer.schedule(() -> value, 1 + i % (WHEEL_SIZE - 1));
+        }
+        int[] fired = {0};
+        for (int i = 0; i < WHEEL_SIZE; i++) timer.tick(value -> fired[0]++);
+        return fired[0];
+    }
+}
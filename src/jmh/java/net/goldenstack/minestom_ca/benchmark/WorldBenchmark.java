@@ -0,0 +1,136 @@
+package net.goldenstack.minestom_ca.benchmark;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.backends.lazy.LazyWorld;
+import net.goldenstack.minestom_ca.rules.BlockPusher;
+import net.goldenstack.minestom_ca.rules.RuleSamples;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import net.minestom.server.utils.Direction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LazyWorld#tick()} on standard scenarios.
+ * <p>
+ * Most scenarios settle or die out after a few dozen generations, so each invocation starts from a fresh world and
+ * times a fixed number of generations from it, rather than timing an idle world for most of an iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldBenchmark {
+    private static final int RANGE = 4;
+    private static final int FLOOR = 10;
+
+    @Param({"game_of_life", "wireworld", "block_pusher", "grass_grow"})
+    public String scenario;
+
+    /**
+     * The number of generations simulated by each invocation.
+     */
+    @Param({"20"})
+    public int generations;
+
+    private InstanceContainer instance;
+    private LazyWorld world;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        this.instance = Benchmarks.createInstance(RANGE);
+        this.world = switch (scenario) {
+            case "game_of_life" -> gameOfLife();
+            case "wireworld" -> wireworld();
+            case "block_pusher" -> blockPusher();
+            case "grass_grow" -> grassGrow();
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        };
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        MinecraftServer.getInstanceManager().unregisterInstance(instance);
+    }
+
+    @Benchmark
+    public int tick() {
+        int modified = 0;
+        for (int i = 0; i < generations; i++) modified += world.tick().modifiedBlocks();
+        return modified;
+    }
+
+    private LazyWorld gameOfLife() {
+        // Random soup over the whole loaded area
+        final Random random = new Random(42);
+        for (int x = -RANGE * 16; x < RANGE * 16; x++) {
+            for (int z = -RANGE * 16; z < RANGE * 16; z++) {
+                if (random.nextFloat() < 0.35f) instance.setBlock(x, FLOOR, z, Block.WHITE_WOOL);
+            }
+        }
+        LazyWorld world = new LazyWorld(instance, new RuleSamples.GameOfLife());
+        Benchmarks.loadChunks(world, RANGE);
+        return world;
+    }
+
+    private LazyWorld wireworld() {
+        final Automata.CellRule rules = Benchmarks.program("wireworld").makeCellRule();
+        LazyWorld world = new LazyWorld(instance, rules);
+        Benchmarks.loadChunks(world, RANGE);
+        final Automata.CellRule.State wwState = Benchmarks.state(rules, "ww_state");
+        // Grid of 6x4 rectangular clocks, each with a single electron looping forever
+        for (int originX = -RANGE * 16; originX < RANGE * 16; originX += 8) {
+            for (int originZ = -RANGE * 16; originZ < RANGE * 16; originZ += 6) {
+                for (int x = 0; x < 6; x++) {
+                    for (int z = 0; z < 4; z++) {
+                        if (x != 0 && x != 5 && z != 0 && z != 3) continue;
+                        final long value = x == 1 && z == 0 ? 1 : x == 0 && z == 0 ? 2 : 3;
+                        final Block block = value == 1 ? Block.RED_WOOL : value == 2 ? Block.PURPLE_WOOL : Block.WHITE_WOOL;
+                        instance.setBlock(originX + x, FLOOR, originZ + z, block);
+                        world.handlePlacement(originX + x, FLOOR, originZ + z, Map.of(
+                                Automata.CellRule.BLOCK_STATE, (long) block.stateId(),
+                                wwState, value));
+                    }
+                }
+            }
+        }
+        return world;
+    }
+
+    private LazyWorld blockPusher() {
+        final BlockPusher rules = new BlockPusher();
+        LazyWorld world = new LazyWorld(instance, rules);
+        Benchmarks.loadChunks(world, RANGE);
+        final Automata.CellRule.State direction = Benchmarks.state(rules, "push_direction");
+        final Automata.CellRule.State strength = Benchmarks.state(rules, "push_strength");
+        // Chains of 8 blocks pushed east, one every other row
+        for (int z = -RANGE * 16; z < RANGE * 16; z += 2) {
+            for (int x = -RANGE * 16; x < -RANGE * 16 + 8; x++) {
+                instance.setBlock(x, FLOOR, z, Block.STONE);
+            }
+            final int x = -RANGE * 16;
+            world.handlePlacement(x, FLOOR, z, Map.of(
+                    Automata.CellRule.BLOCK_STATE, (long) Block.STONE.stateId(),
+                    direction, (long) Direction.EAST.ordinal() + 1,
+                    strength, 100L));
+        }
+        return world;
+    }
+
+    private LazyWorld grassGrow() {
+        for (int x = -RANGE * 16; x < RANGE * 16; x++) {
+            for (int z = -RANGE * 16; z < RANGE * 16; z++) {
+                instance.setBlock(x, FLOOR, z, Block.DIRT);
+            }
+        }
+        LazyWorld world = new LazyWorld(instance, new RuleSamples.GrassGrow());
+        Benchmarks.loadChunks(world, RANGE);
+        return world;
+    }
+}
@@ -2,12 +2,17 @@ package net.goldenstack.minestom_ca;
 
 import it.unimi.dsi.fastutil.ints.Int2LongMap;
 import it.unimi.dsi.fastutil.ints.Int2LongMaps;
+import net.goldenstack.minestom_ca.metrics.AutomataWorldMonitor;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
+import net.goldenstack.minestom_ca.metrics.TickStatistics;
+import net.goldenstack.minestom_ca.metrics.WorldCounters;
 import net.minestom.server.coordinate.Point;
 import net.minestom.server.instance.Chunk;
 import net.minestom.server.instance.Instance;
 import net.minestom.server.instance.block.Block;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.foreign.MemorySegment;
 import java.util.*;
 import java.util.function.LongPredicate;
 
@@ -23,6 +28,44 @@ public final class Automata {
 
         Set<State> states();
 
+        /**
+         * Gets whether cells of a block receive random ticks, see {@link #randomTick(Query)}.
+         */
+        default boolean randomTicked(Block block) {
+            return false;
+        }
+
+        /**
+         * Processes a random tick of a cell.
+         * <p>
+         * Worlds sample a few random-ticked cells of each section every generation, independently of the cells being
+         * tracked, so that slow random growth does not keep every cell awake.
+         */
+        default List<Action> randomTick(Query query) {
+            return null;
+        }
+
+        /**
+         * Gets the cells to wake when a cell changes outside of the rules, such as a placed or loaded block, relative
+         * to the changed cell.
+         * <p>
+         * Must cover every cell whose rule may read the changed one.
+         */
+        default List<Point> wakePoints() {
+            return Neighbors.MOORE_3D_SELF;
+        }
+
+        /**
+         * Instruments this rule to record its evaluations, composed rules also instrument each of their parts.
+         *
+         * @param profiler the profiler receiving the statistics
+         * @param name     the name of this rule in the profiler
+         * @return a profiled rule behaving exactly like this one
+         */
+        default CellRule profiled(RuleProfiler profiler, String name) {
+            return profiler.wrap(name, this);
+        }
+
         record State(String name, int bitSize) {
             public State {
                 if (bitSize < 1 || bitSize > 64) {
@@ -59,11 +102,20 @@ public final class Automata {
             public Action immediate() {
                 return new Action(updatedStates, clear, wakePoints, conditionStates, 0);
             }
+
+            public Action withWakePoints(List<Point> wakePoints) {
+                return new Action(updatedStates, clear, wakePoints, conditionStates, scheduleTick);
+            }
         }
 
         static CellRule rules(CellRule... rules) {
             Set<State> states = new HashSet<>();
-            for (CellRule rule : rules) states.addAll(rule.states());
+            Set<Point> wakePoints = new LinkedHashSet<>();
+            for (CellRule rule : rules) {
+                states.addAll(rule.states());
+                wakePoints.addAll(rule.wakePoints());
+            }
+            final List<Point> mergedWakePoints = List.copyOf(wakePoints);
             return new CellRule() {
                 @Override
                 public void init(Map<State, Integer> mapping) {
@@ -95,10 +147,51 @@ public final class Automata {
                     return false;
                 }
 
+                @Override
+                public boolean randomTicked(Block block) {
+                    for (CellRule rule : rules) {
+                        if (rule.randomTicked(block)) return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public List<Action> randomTick(Query query) {
+                    List<Action> first = null;
+                    List<Action> result = null;
+                    for (CellRule rule : rules) {
+                        List<Action> actions = rule.randomTick(query);
+                        if (actions == null || actions.isEmpty()) continue;
+                        if (first == null) {
+                            first = actions;
+                        } else {
+                            if (result == null) result = new ArrayList<>(first);
+                            result.addAll(actions);
+                        }
+                    }
+                    return result != null ? result : first;
+                }
+
+                @Override
+                public List<Point> wakePoints() {
+                    return mergedWakePoints;
+                }
+
                 @Override
                 public Set<State> states() {
                     return states;
                 }
+
+                @Override
+                public CellRule profiled(RuleProfiler profiler, String name) {
+                    CellRule[] profiledRules = new CellRule[rules.length];
+                    for (int i = 0; i < rules.length; i++) {
+                        final CellRule rule = rules[i];
+                        final String ruleName = rule.getClass().getSimpleName();
+                        profiledRules[i] = rule.profiled(profiler, name + "/" + (ruleName.isEmpty() ? "rule" + i : ruleName));
+                    }
+                    return profiler.wrap(name, CellRule.rules(profiledRules));
+                }
             };
         }
 
@@ -135,6 +228,12 @@ public final class Automata {
 
         Map<String, Long> queryNames(int x, int y, int z);
 
+        /**
+         * Gets a random value for the queried cell, only depending on the seed of the world, the position of the cell
+         * and the generation, so that runs are reproducible whatever the evaluation order.
+         */
+        long random();
+
         default int countNeighborsState(int index, List<Point> points,
                                         LongPredicate predicate) {
             int count = 0;
@@ -154,18 +253,54 @@ public final class Automata {
             }
             return count;
         }
+
+        /**
+         * A test of the cell at an offset of the queried one.
+         */
+        interface CellPredicate {
+            boolean test(Query query, int x, int y, int z);
+        }
+
+        /**
+         * Counts the cells of a set of boxes matching a predicate, relative to the queried cell.
+         * <p>
+         * The predicate must only depend on the states of the world, implementations may then cache its results
+         * until the world changes.
+         */
+        default int countBoxes(List<Neighbors.Box> boxes, CellPredicate predicate) {
+            int count = 0;
+            for (Neighbors.Box box : boxes) {
+                for (int x = box.minX(); x <= box.maxX(); x++) {
+                    for (int y = box.minY(); y <= box.maxY(); y++) {
+                        for (int z = box.minZ(); z <= box.maxZ(); z++) {
+                            if (predicate.test(this, x, y, z)) count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
     }
 
     public interface World {
         Map<UUID, World> WORLDS = new HashMap<>();
 
+        /**
+         * Ticks a world along with its instance.
+         *
+         * @throws IllegalArgumentException if the world is not backed by an instance, such as a headless world
+         */
         static void register(World world) {
             final Instance instance = world.instance();
+            if (instance == null) {
+                throw new IllegalArgumentException("Only worlds backed by an instance can be registered");
+            }
             final World prev = WORLDS.put(instance.getUuid(), world);
             if (prev != null) {
                 throw new IllegalStateException("An AutomataWorld is already registered for the instance " + instance);
             }
             instance.eventNode().addChild(AutomataImpl.AUTOMATA_EVENT_NODE);
+            AutomataWorldMonitor.register(instance.getUuid().toString(), world);
             // Register loaded chunks
             System.out.println("Registering loaded chunks...");
             for (Chunk c : instance.getChunks()) world.handleChunkLoad(c.getChunkX(), c.getChunkZ());
@@ -183,6 +318,9 @@ public final class Automata {
 
         /**
          * Handles an external block change (e.g. block place or break)
+         * <p>
+         * Implementations may defer the change to the start of the next tick. Values wider than the bit size of their
+         * state are truncated to its low bits.
          */
         void handlePlacement(int x, int y, int z, Map<CellRule.State, Long> properties);
 
@@ -191,6 +329,60 @@ public final class Automata {
                     Map.of(CellRule.BLOCK_STATE, (long) block.stateId()));
         }
 
+        /**
+         * Places a whole region at once, as if each of its cells was placed with
+         * {@link #handlePlacement(int, int, int, Map)}.
+         *
+         * @param region the placed region
+         * @param blocks the block state ids, or null to keep the current blocks
+         * @param states the values of the custom states, states missing from the map are reset to 0
+         */
+        default void placeRegion(Region region, int @Nullable [] blocks, Map<CellRule.State, long[]> states) {
+            checkRegionArrays(region, blocks, states);
+            for (int y = 0; y < region.sizeY(); y++) {
+                for (int z = 0; z < region.sizeZ(); z++) {
+                    for (int x = 0; x < region.sizeX(); x++) {
+                        final int index = region.index(x, y, z);
+                        Map<CellRule.State, Long> properties = new HashMap<>();
+                        if (blocks != null) properties.put(CellRule.BLOCK_STATE, (long) blocks[index]);
+                        states.forEach((state, values) -> properties.put(state, values[index]));
+                        handlePlacement(region.minX() + x, region.minY() + y, region.minZ() + z, properties);
+                    }
+                }
+            }
+        }
+
+        static void checkRegionArrays(Region region, int @Nullable [] blocks, Map<CellRule.State, long[]> states) {
+            if (blocks != null && blocks.length != region.volume()) {
+                throw new IllegalArgumentException("Block array length must match the region volume");
+            }
+            for (long[] values : states.values()) {
+                if (values.length != region.volume()) {
+                    throw new IllegalArgumentException("State array length must match the region volume");
+                }
+            }
+        }
+
+        /**
+         * Copies the values of a state over a whole region, as longs indexed by {@link Region#index(int, int, int)}.
+         * <p>
+         * Must not run concurrently with {@link #tick()}, cells outside of the simulated area read as 0.
+         *
+         * @param state       the read state, {@link CellRule#BLOCK_STATE} for the block state ids
+         * @param destination the segment receiving {@link Region#volume()} longs
+         */
+        void readRegion(Region region, CellRule.State state, MemorySegment destination);
+
+        default void readRegion(Region region, CellRule.State state, long[] destination) {
+            readRegion(region, state, MemorySegment.ofArray(destination));
+        }
+
+        static void checkReadDestination(Region region, MemorySegment destination) {
+            if (destination.byteSize() < (long) region.volume() * Long.BYTES) {
+                throw new IllegalArgumentException("Destination is smaller than the region volume");
+            }
+        }
+
         void handleChunkLoad(int chunkX, int chunkZ);
 
         void handleChunkUnload(int chunkX, int chunkZ);
@@ -198,36 +390,101 @@ public final class Automata {
         /**
          * Gets the instance that is being ticked
          *
-         * @return the ticked instance
+         * @return the ticked instance, or null for worlds that are not backed by an instance
          */
-        Instance instance();
+        @Nullable Instance instance();
 
         CellRule rules();
 
         Query query();
 
         void updateRules(Automata.CellRule newRules);
+
+        /**
+         * Gets the tick durations of this world, overall and per phase.
+         */
+        TickStatistics tickStatistics();
+
+        /**
+         * Gets the live counters of this world, also exposed over JMX for registered worlds.
+         */
+        WorldCounters counters();
+
+        /**
+         * Enables or disables per-rule profiling, replacing the ticked rules by their profiled version.
+         *
+         * @param profiler the profiler receiving the statistics, or null to run the plain rules again
+         */
+        void setProfiler(@Nullable RuleProfiler profiler);
+
+        @Nullable RuleProfiler profiler();
     }
 
     public record Metrics(
             int processedSections,
             int processedBlocks,
-            int modifiedBlocks
+            int modifiedBlocks,
+            // Sections and blocks left tracked for the next tick because the tick budget ran out
+            int deferredSections,
+            int deferredBlocks
     ) {
-        public static final Metrics EMPTY = new Metrics(0, 0, 0);
+        public static final Metrics EMPTY = new Metrics(0, 0, 0, 0, 0);
 
         public Metrics {
-            if (processedSections < 0 || processedBlocks < 0 || modifiedBlocks < 0) {
+            if (processedSections < 0 || processedBlocks < 0 || modifiedBlocks < 0 ||
+                    deferredSections < 0 || deferredBlocks < 0) {
                 throw new IllegalArgumentException("Metrics values cannot be negative");
             }
         }
 
+        public Metrics(int processedSections, int processedBlocks, int modifiedBlocks) {
+            this(processedSections, processedBlocks, modifiedBlocks, 0, 0);
+        }
+
+        /**
+         * Sums the processing counters, the backlog is taken from {@code other} as it is the most recent one.
+         */
         public Metrics add(Metrics other) {
             return new Metrics(
                     this.processedSections + other.processedSections,
                     this.processedBlocks + other.processedBlocks,
-                    this.modifiedBlocks + other.modifiedBlocks
+                    this.modifiedBlocks + other.modifiedBlocks,
+                    other.deferredSections,
+                    other.deferredBlocks
             );
         }
     }
+
+    /**
+     * A box of cells, with the values of its cells stored in arrays indexed by {@link #index(int, int, int)}.
+     */
+    public record Region(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        public Region {
+            if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) throw new IllegalArgumentException("Region size must be positive");
+            if ((long) sizeX * sizeY * sizeZ > Integer.MAX_VALUE) throw new IllegalArgumentException("Region is too large");
+        }
+
+        public int volume() {
+            return sizeX * sizeY * sizeZ;
+        }
+
+        /**
+         * Gets the array index of a cell, from coordinates relative to the minimum corner.
+         */
+        public int index(int x, int y, int z) {
+            return (y * sizeZ + z) * sizeX + x;
+        }
+
+        public int maxX() {
+            return minX + sizeX - 1;
+        }
+
+        public int maxY() {
+            return minY + sizeY - 1;
+        }
+
+        public int maxZ() {
+            return minZ + sizeZ - 1;
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package net.goldenstack.minestom_ca;
 
+import net.goldenstack.minestom_ca.metrics.TickStatistics;
+import net.goldenstack.minestom_ca.metrics.WorldCounters;
 import net.kyori.adventure.nbt.NumberBinaryTag;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -27,9 +29,14 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class AutomataImpl {
     public static final AtomicBoolean RUNNING = new AtomicBoolean(true);
+    /**
+     * Number of ticks between two refreshes of the tab-list header, 0 or less to disable it.
+     */
+    public static final AtomicInteger HUD_INTERVAL = new AtomicInteger(20);
     public static final Tag<Boolean> AUTOMATA_DEBUG = Tag.Boolean("automata_debug").defaultValue(false);
     public static final EventNode<InstanceEvent> AUTOMATA_EVENT_NODE = EventNode.type("automata", EventFilter.INSTANCE)
             .addListener(PlayerBlockPlaceEvent.class, event -> {
@@ -99,31 +106,40 @@ public final class AutomataImpl {
             .addListener(InstanceTickEvent.class, event -> {
                 if (!RUNNING.get()) return;
                 final Instance eventInstance = event.getInstance();
-                final long start = System.nanoTime();
-
                 Automata.World world = Automata.World.get(eventInstance);
-                final Automata.Metrics metrics = world.tick();
-
-                final long duration = System.nanoTime() - start;
-                final double mspt = duration / 1.0e6;
+                world.tick();
 
-                // Calculate modification ratio (percentage of processed blocks that were modified)
-                String ratio = "0%";
-                if (metrics.processedBlocks() > 0) {
-                    final int modRatio = (metrics.modifiedBlocks() * 100) / metrics.processedBlocks();
-                    ratio = modRatio + "%";
-                }
+                // The header is only a sampled view of the world counters, rebuilt once per interval
+                final int interval = HUD_INTERVAL.get();
+                if (interval <= 0) return;
+                final WorldCounters counters = world.counters();
+                if (counters.ticks() % interval != 0) return;
+                eventInstance.sendPlayerListHeader(header(counters, world.tickStatistics()));
+            });
 
-                Component header = Component.text()
-                        .append(Component.text("§b■ §fMSPT: §a" + String.format("%.2f", mspt) + "ms"))
-                        .append(Component.newline())
-                        .append(Component.text("§b■ §fProcessed Sections: §a" + metrics.processedSections()))
-                        .append(Component.newline())
-                        .append(Component.text("§b■ §fProcessed Blocks: §a" + metrics.processedBlocks()))
-                        .append(Component.newline())
-                        .append(Component.text("§b■ §fModified Blocks: §a" + metrics.modifiedBlocks() + " §f(§a" + ratio + "§f)"))
-                        .build();
+    private static Component header(WorldCounters counters, TickStatistics statistics) {
+        final int ticks = Math.max(1, counters.windowTicks());
+        final long processed = counters.windowProcessedBlocks();
+        final long modified = counters.windowModifiedBlocks();
+        final long ratio = processed > 0 ? modified * 100 / processed : 0;
+        return Component.text()
+                .append(Component.text("§b■ §fMSPT: §a" + millis(statistics.total().percentile(50))
+                        + "ms §f(p99 §a" + millis(statistics.total().percentile(99)) + "ms§f)"))
+                .append(Component.newline())
+                .append(Component.text("§b■ §fTracked: §a" + counters.trackedSections() + " sections §f(§a"
+                        + counters.trackedBlocks() + " blocks§f)"))
+                .append(Component.newline())
+                .append(Component.text("§b■ §fProcessed Blocks: §a" + processed / ticks + "/tick"))
+                .append(Component.newline())
+                .append(Component.text("§b■ §fModified Blocks: §a" + modified / ticks + "/tick §f(§a" + ratio + "%§f)"))
+                .append(Component.newline())
+                .append(Component.text("§b■ §fPending Timers: §a" + counters.pendingTimers()
+                        + " §f| Packets: §a" + counters.windowPacketsSent() / ticks + "/tick"))
+                .build();
+    }
 
-                eventInstance.sendPlayerListHeader(header);
-            });
+    private static String millis(long nanos) {
+        final long hundredths = nanos / 10_000;
+        return hundredths / 100 + "." + (hundredths % 100 < 10 ? "0" : "") + hundredths % 100;
+    }
 }
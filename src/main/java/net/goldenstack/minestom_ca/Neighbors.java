@@ -3,9 +3,15 @@ package net.goldenstack.minestom_ca;
 import net.minestom.server.coordinate.Point;
 import net.minestom.server.coordinate.Vec;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Stores lists of neighbors.
@@ -75,4 +81,141 @@ public final class Neighbors {
             Map.entry("neumann3dself", NEUMANN_3D_SELF),
             Map.entry("neumann3d", NEUMANN_3D)
     );
+
+    /**
+     * The largest radius of the neighborhoods named {@code box<r>}, {@code sphere<r>} and {@code diamond<r>}.
+     */
+    public static final int MAX_RADIUS = 16;
+
+    private static final Pattern SHAPE = Pattern.compile("(box|sphere|diamond)(\\d+)(self)?");
+    private static final Map<String, List<Point>> SHAPES = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves a neighborhood name, either one of {@link #NAMED} or a shape of radius up to {@link #MAX_RADIUS}
+     * such as {@code box3} or {@code sphere5self}.
+     *
+     * @return the neighbors, null if the name is unknown
+     */
+    public static @Nullable List<Point> named(String name) {
+        final List<Point> named = NAMED.get(name);
+        if (named != null) return named;
+        final Matcher matcher = SHAPE.matcher(name);
+        if (!matcher.matches() || matcher.group(2).length() > 2) return null;
+        final int radius = Integer.parseInt(matcher.group(2));
+        if (radius < 1 || radius > MAX_RADIUS) return null;
+        return SHAPES.computeIfAbsent(name, _ -> {
+            final boolean self = matcher.group(3) != null;
+            return switch (matcher.group(1)) {
+                case "box" -> box(radius, self);
+                case "sphere" -> sphere(radius, self);
+                default -> diamond(radius, self);
+            };
+        });
+    }
+
+    /**
+     * Gets the cells at a Chebyshev distance of at most {@code radius}.
+     */
+    public static List<Point> box(int radius, boolean self) {
+        return shape(radius, self, (x, y, z) -> true);
+    }
+
+    /**
+     * Gets the cells at a Euclidean distance of at most {@code radius}.
+     */
+    public static List<Point> sphere(int radius, boolean self) {
+        return shape(radius, self, (x, y, z) -> x * x + y * y + z * z <= radius * radius);
+    }
+
+    /**
+     * Gets the cells at a Manhattan distance of at most {@code radius}.
+     */
+    public static List<Point> diamond(int radius, boolean self) {
+        return shape(radius, self, (x, y, z) -> Math.abs(x) + Math.abs(y) + Math.abs(z) <= radius);
+    }
+
+    private interface Shape {
+        boolean contains(int x, int y, int z);
+    }
+
+    private static List<Point> shape(int radius, boolean self, Shape shape) {
+        if (radius < 1) throw new IllegalArgumentException("Radius must be positive: " + radius);
+        List<Point> points = new ArrayList<>();
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    if (!self && x == 0 && y == 0 && z == 0) continue;
+                    if (shape.contains(x, y, z)) points.add(new Vec(x, y, z));
+                }
+            }
+        }
+        return List.copyOf(points);
+    }
+
+    /**
+     * An axis-aligned box of offsets, bounds are inclusive.
+     */
+    public record Box(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        public int volume() {
+            return (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        }
+
+        /**
+         * Gets the largest distance of the box to the origin along any axis.
+         */
+        public int reach() {
+            return Math.max(Math.max(Math.max(-minX, maxX), Math.max(-minY, maxY)), Math.max(-minZ, maxZ));
+        }
+    }
+
+    /**
+     * Covers a set of offsets with disjoint boxes, found greedily by growing runs along x, then z, then y.
+     * <p>
+     * Duplicate offsets are only covered once.
+     */
+    public static List<Box> boxes(List<Point> points) {
+        if (points.isEmpty()) return List.of();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (Point point : points) {
+            minX = Math.min(minX, point.blockX());
+            minY = Math.min(minY, point.blockY());
+            minZ = Math.min(minZ, point.blockZ());
+            maxX = Math.max(maxX, point.blockX());
+            maxY = Math.max(maxY, point.blockY());
+            maxZ = Math.max(maxZ, point.blockZ());
+        }
+        final int sizeX = maxX - minX + 1, sizeY = maxY - minY + 1, sizeZ = maxZ - minZ + 1;
+        BitSet remaining = new BitSet(sizeX * sizeY * sizeZ);
+        for (Point point : points) {
+            remaining.set(((point.blockY() - minY) * sizeZ + point.blockZ() - minZ) * sizeX + point.blockX() - minX);
+        }
+        List<Box> boxes = new ArrayList<>();
+        for (int start = remaining.nextSetBit(0); start >= 0; start = remaining.nextSetBit(start + 1)) {
+            final int x = start % sizeX, z = start / sizeX % sizeZ, y = start / sizeX / sizeZ;
+            int endX = x, endZ = z, endY = y;
+            while (endX + 1 < sizeX && remaining.get(start + endX + 1 - x)) endX++;
+            while (endZ + 1 < sizeZ && filled(remaining, sizeX, sizeZ, x, endX, y, y, endZ + 1, endZ + 1)) endZ++;
+            while (endY + 1 < sizeY && filled(remaining, sizeX, sizeZ, x, endX, endY + 1, endY + 1, z, endZ)) endY++;
+            for (int by = y; by <= endY; by++) {
+                for (int bz = z; bz <= endZ; bz++) {
+                    final int row = (by * sizeZ + bz) * sizeX;
+                    remaining.clear(row + x, row + endX + 1);
+                }
+            }
+            boxes.add(new Box(x + minX, y + minY, z + minZ, endX + minX, endY + minY, endZ + minZ));
+        }
+        return List.copyOf(boxes);
+    }
+
+    private static boolean filled(BitSet bits, int sizeX, int sizeZ,
+                                  int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                final int row = (y * sizeZ + z) * sizeX;
+                if (bits.nextClearBit(row + minX) <= row + maxX) return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,554 @@
+package net.goldenstack.minestom_ca.backends.headless;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.backends.lazy.HashedWheelTimer;
+import net.goldenstack.minestom_ca.backends.lazy.RandomTickSet;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
+import net.goldenstack.minestom_ca.metrics.TickEvent;
+import net.goldenstack.minestom_ca.metrics.TickPhase;
+import net.goldenstack.minestom_ca.metrics.TickStatistics;
+import net.goldenstack.minestom_ca.metrics.WorldCounters;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.instance.Instance;
+import net.minestom.server.instance.block.Block;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.*;
+
+import static net.goldenstack.minestom_ca.CoordConversionPro.sectionBlockIndex;
+import static net.goldenstack.minestom_ca.CoordConversionPro.sectionIndexGlobal;
+import static net.minestom.server.coordinate.CoordConversion.globalToSectionRelative;
+
+/**
+ * An {@link Automata.World} over a fixed in-memory voxel grid, not backed by any instance.
+ * <p>
+ * Follows the same evaluation order as {@link net.goldenstack.minestom_ca.backends.lazy.LazyWorld}: tracked cells are
+ * evaluated against the state of the previous generation, timed changes are applied after the computed ones, and
+ * actions wake their neighbors for the next generation. Cells outside the grid read as {@code 0} and are never
+ * evaluated, so both backends produce identical generations as long as the simulated pattern stays inside the grid.
+ * <p>
+ * Ticked by calling {@link #tick()} directly, it has no instance and cannot be passed to
+ * {@link Automata.World#register(Automata.World)}.
+ */
+public final class HeadlessWorld implements Automata.World {
+    private final QueryImpl query = new QueryImpl();
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+
+    // Rules being ticked, the profiled version of `baseRules` when profiling
+    private Automata.CellRule rules;
+    private Automata.CellRule baseRules;
+    private RuleProfiler profiler;
+    private List<Automata.CellRule.State> orderedStates;
+    private Map<Automata.CellRule.State, Integer> rulesMapping;
+    private long[] stateMasks;
+
+    // Block state ids, indexed by `cellIndex`
+    private final int[] blocks;
+    // Custom states, one array per state index (minus the block state)
+    private long[][] states;
+    // Cells to evaluate next generation, and their number
+    private final BitSet trackedCells;
+    private int trackedCellCount;
+
+    private final HashedWheelTimer<ScheduledChange> wheelTimer = new HashedWheelTimer<>(255);
+    // Wake points of the applied actions, registered once all changes are applied
+    private final List<Wake> pendingWakes = new ArrayList<>();
+
+    // Random-ticked cells, grouped by the 16x16x16 section they would belong to in a world
+    private final Long2ObjectMap<RandomTickSet> randomTicks = new Long2ObjectLinkedOpenHashMap<>();
+    private int randomTickSpeed = 3;
+    private long randomTickSeed = 0;
+    private long generation = 0;
+
+    private final long[] phaseNanos = new long[TickPhase.VALUES.length];
+    private final TickStatistics statistics = new TickStatistics();
+    private final WorldCounters counters = new WorldCounters();
+
+    public HeadlessWorld(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, Automata.CellRule rules) {
+        if (sizeX < 1 || sizeY < 1 || sizeZ < 1) throw new IllegalArgumentException("Grid size must be positive");
+        if ((long) sizeX * sizeY * sizeZ > Integer.MAX_VALUE) throw new IllegalArgumentException("Grid is too large");
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        final int cellCount = sizeX * sizeY * sizeZ;
+        this.blocks = new int[cellCount];
+        this.trackedCells = new BitSet(cellCount);
+        final List<Automata.CellRule.State> orderedStates = new ArrayList<>(rules.states());
+        this.states = new long[orderedStates.size()][cellCount];
+        initRules(rules, orderedStates);
+    }
+
+    private void initRules(Automata.CellRule rules, List<Automata.CellRule.State> orderedStates) {
+        this.orderedStates = orderedStates;
+        this.stateMasks = new long[orderedStates.size()];
+        Map<Automata.CellRule.State, Integer> mapping = new HashMap<>();
+        for (int i = 0; i < orderedStates.size(); i++) {
+            final Automata.CellRule.State state = orderedStates.get(i);
+            final int bitSize = state.bitSize();
+            this.stateMasks[i] = bitSize == 64 ? -1L : (1L << bitSize) - 1;
+            mapping.put(state, i + 1); // index 0 is reserved for block state
+        }
+        this.baseRules = rules;
+        this.rules = profiler != null ? rules.profiled(profiler, "rules") : rules;
+        this.rules.init(mapping);
+        this.rulesMapping = mapping;
+    }
+
+    private boolean inBounds(int x, int y, int z) {
+        return x >= minX && x < minX + sizeX &&
+                y >= minY && y < minY + sizeY &&
+                z >= minZ && z < minZ + sizeZ;
+    }
+
+    private int cellIndex(int x, int y, int z) {
+        return ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+    }
+
+    private int cellX(int index) {
+        return index % sizeX + minX;
+    }
+
+    private int cellY(int index) {
+        return index / (sizeX * sizeZ) + minY;
+    }
+
+    private int cellZ(int index) {
+        return (index / sizeX) % sizeZ + minZ;
+    }
+
+    private long value(int x, int y, int z, int index) {
+        if (!inBounds(x, y, z)) return 0;
+        final int cellIndex = cellIndex(x, y, z);
+        return index == 0 ? blocks[cellIndex] : states[index - 1][cellIndex];
+    }
+
+    /**
+     * Writes a block without waking up any cell, used to populate the grid.
+     */
+    public void setBlock(int x, int y, int z, Block block) {
+        if (!inBounds(x, y, z)) throw new IllegalArgumentException("Position outside of the grid: " + x + "," + y + "," + z);
+        blocks[cellIndex(x, y, z)] = block.stateId();
+    }
+
+    public Block getBlock(int x, int y, int z) {
+        return Block.fromStateId((int) value(x, y, z, 0));
+    }
+
+    public long getState(int x, int y, int z, Automata.CellRule.State state) {
+        return value(x, y, z, query.stateIndex(state));
+    }
+
+    @Override
+    public void readRegion(Automata.Region region, Automata.CellRule.State state, MemorySegment destination) {
+        Automata.World.checkReadDestination(region, destination);
+        final int index = query.stateIndex(state);
+        destination.asSlice(0, (long) region.volume() * Long.BYTES).fill((byte) 0);
+        final int fromX = Math.max(region.minX(), minX), toX = Math.min(region.maxX(), minX + sizeX - 1);
+        final int fromY = Math.max(region.minY(), minY), toY = Math.min(region.maxY(), minY + sizeY - 1);
+        final int fromZ = Math.max(region.minZ(), minZ), toZ = Math.min(region.maxZ(), minZ + sizeZ - 1);
+        if (fromX > toX || fromY > toY || fromZ > toZ) return;
+        final int length = toX - fromX + 1;
+        final MemorySegment source = index > 0 ? MemorySegment.ofArray(states[index - 1]) : null;
+        for (int y = fromY; y <= toY; y++) {
+            for (int z = fromZ; z <= toZ; z++) {
+                final int cellIndex = cellIndex(fromX, y, z);
+                final long target = (long) region.index(fromX - region.minX(), y - region.minY(), z - region.minZ()) * Long.BYTES;
+                if (source != null) {
+                    MemorySegment.copy(source, ValueLayout.JAVA_LONG, (long) cellIndex * Long.BYTES,
+                            destination, ValueLayout.JAVA_LONG_UNALIGNED, target, length);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        destination.set(ValueLayout.JAVA_LONG_UNALIGNED, target + (long) i * Long.BYTES, blocks[cellIndex + i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private record ScheduledChange(int cellIndex, List<Automata.CellRule.Action> actions) {
+    }
+
+    private record CellChange(int cellIndex, List<Automata.CellRule.Action> actions) {
+    }
+
+    private record Wake(int cellIndex, List<Point> wakePoints) {
+    }
+
+    @Override
+    public Automata.Metrics tick() {
+        final TickEvent event = new TickEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        Arrays.fill(phaseNanos, 0);
+        final Automata.Metrics metrics = singleTick();
+        statistics.record(System.nanoTime() - start, phaseNanos);
+        event.complete("headless", metrics, phaseNanos);
+        // The grid counts as a single section, nothing is sent over the network and the storage lives on the heap
+        counters.recordTick(metrics, 0);
+        counters.updateGauges(trackedCells.isEmpty() ? 0 : 1, trackedCellCount, wheelTimer.size(), 0);
+        return metrics;
+    }
+
+    private Automata.Metrics singleTick() {
+        if (trackedCells.isEmpty() && wheelTimer.isEmpty() && randomTicks.isEmpty()) return Automata.Metrics.EMPTY;
+        generation++;
+        final long computeStart = System.nanoTime();
+        List<CellChange> changes = new ArrayList<>();
+        int processedBlocks = 0;
+        int modifiedBlocks = 0;
+        for (int cellIndex = trackedCells.nextSetBit(0);
+             cellIndex >= 0;
+             cellIndex = trackedCells.nextSetBit(cellIndex + 1)) {
+            processedBlocks++;
+            query.updateLocal(cellX(cellIndex), cellY(cellIndex), cellZ(cellIndex));
+            final List<Automata.CellRule.Action> actions = rules.process(query);
+            if (actions != null) {
+                modifiedBlocks++;
+                changes.add(new CellChange(cellIndex, actions));
+            }
+        }
+        trackedCells.clear();
+        trackedCellCount = 0;
+        final long timedStart = System.nanoTime();
+        wheelTimer.tick(scheduledChange -> changes.add(new CellChange(scheduledChange.cellIndex(), scheduledChange.actions())));
+        final var iterator = randomTicks.long2ObjectEntrySet().iterator();
+        while (randomTickSpeed > 0 && iterator.hasNext()) {
+            final Long2ObjectMap.Entry<RandomTickSet> entry = iterator.next();
+            final RandomTickSet cells = entry.getValue();
+            for (int sample = 0; sample < randomTickSpeed && !cells.isEmpty(); sample++) {
+                final int slot = cells.slot(RandomTickSet.random(randomTickSeed, entry.getLongKey(), generation, sample));
+                final int cellIndex = cells.cell(slot);
+                if (!randomTicked(blocks[cellIndex])) {
+                    cells.removeSlot(slot);
+                    continue;
+                }
+                processedBlocks++;
+                query.updateLocal(cellX(cellIndex), cellY(cellIndex), cellZ(cellIndex));
+                final List<Automata.CellRule.Action> actions = rules.randomTick(query);
+                if (actions != null) {
+                    modifiedBlocks++;
+                    changes.add(new CellChange(cellIndex, actions));
+                }
+            }
+            if (cells.isEmpty()) iterator.remove();
+        }
+        final long applyStart = System.nanoTime();
+        for (CellChange change : changes) {
+            for (Automata.CellRule.Action action : change.actions()) {
+                processAction(change.cellIndex(), action);
+            }
+        }
+        final long registerStart = System.nanoTime();
+        for (Wake wake : pendingWakes) {
+            final int cellIndex = wake.cellIndex();
+            register(cellX(cellIndex), cellY(cellIndex), cellZ(cellIndex), wake.wakePoints());
+        }
+        pendingWakes.clear();
+        final long end = System.nanoTime();
+        phaseNanos[TickPhase.COMPUTE.ordinal()] = timedStart - computeStart;
+        phaseNanos[TickPhase.TIMED.ordinal()] = applyStart - timedStart;
+        phaseNanos[TickPhase.APPLY.ordinal()] = registerStart - applyStart;
+        phaseNanos[TickPhase.REGISTER.ordinal()] = end - registerStart;
+        // There are no sections, the grid is processed as a whole
+        return new Automata.Metrics(0, processedBlocks, modifiedBlocks);
+    }
+
+    private void processAction(int cellIndex, Automata.CellRule.Action action) {
+        if (action.scheduleTick() > 0) {
+            final ScheduledChange change = new ScheduledChange(cellIndex, List.of(action.immediate()));
+            wheelTimer.schedule(() -> change, action.scheduleTick());
+            return;
+        }
+        if (!actionPredicate(cellIndex, action)) return;
+        if (action.clear()) {
+            blocks[cellIndex] = 0;
+            for (long[] values : states) values[cellIndex] = 0;
+        }
+        final Int2LongMap updatedStates = action.updatedStates();
+        if (updatedStates != null) {
+            for (Int2LongMap.Entry entry : updatedStates.int2LongEntrySet()) {
+                final int stateIndex = entry.getIntKey();
+                final long value = entry.getLongValue();
+                if (stateIndex == 0) {
+                    blocks[cellIndex] = (int) value;
+                    if (randomTicked((int) value)) addRandomTick(cellIndex);
+                } else {
+                    states[stateIndex - 1][cellIndex] = value & stateMasks[stateIndex - 1];
+                }
+            }
+        }
+        pendingWakes.add(new Wake(cellIndex, action.wakePoints()));
+    }
+
+    /**
+     * Sets how many random ticks each 16x16x16 part of the grid receives per generation, vanilla uses 3.
+     * <p>
+     * Cells are sampled in the order they became random-ticked, which may differ from a world loading chunks.
+     *
+     * @param cellsPerSection the number of cells sampled per section, 0 to disable random ticks
+     * @param seed            the seed of the samples
+     */
+    public void setRandomTicks(int cellsPerSection, long seed) {
+        if (cellsPerSection < 0) throw new IllegalArgumentException("Random tick speed cannot be negative");
+        this.randomTickSpeed = cellsPerSection;
+        this.randomTickSeed = seed;
+    }
+
+    private boolean randomTicked(int blockState) {
+        return blockState > 0 && rules.randomTicked(Block.fromStateId(blockState));
+    }
+
+    private void addRandomTick(int cellIndex) {
+        final long sectionIndex = sectionIndexGlobal(cellX(cellIndex), cellY(cellIndex), cellZ(cellIndex));
+        randomTicks.computeIfAbsent(sectionIndex, _ -> new RandomTickSet()).add(cellIndex);
+    }
+
+    private boolean actionPredicate(int cellIndex, Automata.CellRule.Action action) {
+        final Int2LongMap conditionStates = action.conditionStates();
+        if (conditionStates == null || conditionStates.isEmpty()) return true;
+        for (Int2LongMap.Entry entry : conditionStates.int2LongEntrySet()) {
+            final int stateIndex = entry.getIntKey();
+            final long current = stateIndex == 0 ? blocks[cellIndex] : states[stateIndex - 1][cellIndex];
+            if (current != entry.getLongValue()) return false;
+        }
+        return true;
+    }
+
+    private void register(int x, int y, int z, List<Point> wakePoints) {
+        for (Point point : wakePoints) {
+            final int nX = x + point.blockX();
+            final int nY = y + point.blockY();
+            final int nZ = z + point.blockZ();
+            if (!inBounds(nX, nY, nZ)) continue;
+            final int cellIndex = cellIndex(nX, nY, nZ);
+            if (trackedCells.get(cellIndex)) continue;
+            trackedCells.set(cellIndex);
+            trackedCellCount++;
+        }
+    }
+
+    /**
+     * Handles an external change, unlike {@link net.goldenstack.minestom_ca.backends.lazy.LazyWorld} the block state
+     * is also written as there is no instance to place it.
+     */
+    @Override
+    public void handlePlacement(int x, int y, int z, Map<Automata.CellRule.State, Long> properties) {
+        if (!inBounds(x, y, z)) return;
+        final int cellIndex = cellIndex(x, y, z);
+        final Long blockState = properties.get(Automata.CellRule.BLOCK_STATE);
+        if (blockState != null) {
+            blocks[cellIndex] = (int) (long) blockState;
+            if (randomTicked(blocks[cellIndex])) addRandomTick(cellIndex);
+        }
+        for (int i = 0; i < orderedStates.size(); i++) {
+            final long value = properties.getOrDefault(orderedStates.get(i), 0L);
+            states[i][cellIndex] = value & stateMasks[i];
+        }
+        register(x, y, z, rules.wakePoints());
+    }
+
+    /**
+     * Registers the tracked blocks of the grid inside the given chunk column, the same way a chunk load does.
+     */
+    @Override
+    public void handleChunkLoad(int chunkX, int chunkZ) {
+        final int startX = Math.max(minX, chunkX * 16), endX = Math.min(minX + sizeX, chunkX * 16 + 16);
+        final int startZ = Math.max(minZ, chunkZ * 16), endZ = Math.min(minZ + sizeZ, chunkZ * 16 + 16);
+        final List<Point> wakePoints = rules.wakePoints();
+        for (int y = minY; y < minY + sizeY; y++) {
+            for (int z = startZ; z < endZ; z++) {
+                for (int x = startX; x < endX; x++) {
+                    final int value = blocks[cellIndex(x, y, z)];
+                    if (randomTicked(value)) addRandomTick(cellIndex(x, y, z));
+                    if (value > 0 && rules.tracked(Block.fromStateId(value))) {
+                        register(x, y, z, wakePoints);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handleChunkUnload(int chunkX, int chunkZ) {
+        // Empty, the grid is never unloaded
+    }
+
+    @Override
+    public @Nullable Instance instance() {
+        return null;
+    }
+
+    @Override
+    public TickStatistics tickStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public WorldCounters counters() {
+        return counters;
+    }
+
+    @Override
+    public Automata.CellRule rules() {
+        return baseRules;
+    }
+
+    @Override
+    public void setProfiler(RuleProfiler profiler) {
+        this.profiler = profiler;
+        this.rules = profiler != null ? baseRules.profiled(profiler, "rules") : baseRules;
+        this.rules.init(rulesMapping);
+    }
+
+    @Override
+    public RuleProfiler profiler() {
+        return profiler;
+    }
+
+    @Override
+    public Automata.Query query() {
+        return query;
+    }
+
+    @Override
+    public void updateRules(Automata.CellRule newRules) {
+        final List<Automata.CellRule.State> orderedStates = new ArrayList<>(newRules.states());
+        Int2IntMap oldToNewIndex = new Int2IntOpenHashMap();
+        oldToNewIndex.defaultReturnValue(-1);
+        long[][] newStates = new long[orderedStates.size()][];
+        for (int i = 0; i < orderedStates.size(); i++) {
+            final Integer oldIndex = rulesMapping.get(orderedStates.get(i));
+            if (oldIndex != null) {
+                oldToNewIndex.put(oldIndex, i + 1);
+                newStates[i] = states[oldIndex - 1];
+            } else {
+                newStates[i] = new long[blocks.length];
+            }
+        }
+        oldToNewIndex.put(0, 0);
+        this.states = newStates;
+        initRules(newRules, orderedStates);
+
+        Map<Integer, List<ScheduledChange>> scheduledChanges = wheelTimer.drainAll();
+        for (Map.Entry<Integer, List<ScheduledChange>> entry : scheduledChanges.entrySet()) {
+            for (ScheduledChange change : entry.getValue()) {
+                List<Automata.CellRule.Action> actions = new ArrayList<>();
+                for (Automata.CellRule.Action action : change.actions()) {
+                    actions.add(new Automata.CellRule.Action(
+                            remapStateIndices(action.updatedStates(), oldToNewIndex),
+                            action.clear(),
+                            action.wakePoints(),
+                            remapStateIndices(action.conditionStates(), oldToNewIndex),
+                            action.scheduleTick()));
+                }
+                final ScheduledChange newChange = new ScheduledChange(change.cellIndex(), actions);
+                wheelTimer.schedule(() -> newChange, entry.getKey());
+            }
+        }
+
+        trackedCells.clear();
+        trackedCellCount = 0;
+        randomTicks.clear();
+        for (int cellIndex = 0; cellIndex < blocks.length; cellIndex++) {
+            final int value = blocks[cellIndex];
+            if (randomTicked(value)) addRandomTick(cellIndex);
+            boolean tracked = value > 0 && newRules.tracked(Block.fromStateId(value));
+            for (int i = 0; !tracked && i < states.length; i++) tracked = states[i][cellIndex] != 0;
+            if (tracked) register(cellX(cellIndex), cellY(cellIndex), cellZ(cellIndex), newRules.wakePoints());
+        }
+    }
+
+    private static Int2LongMap remapStateIndices(Int2LongMap original, Int2IntMap indexMapping) {
+        if (original == null) return null;
+        Int2LongMap remapped = new Int2LongOpenHashMap();
+        for (Int2LongMap.Entry entry : original.int2LongEntrySet()) {
+            final int newIndex = indexMapping.get(entry.getIntKey());
+            if (newIndex != -1) remapped.put(newIndex, entry.getLongValue());
+        }
+        return remapped;
+    }
+
+    private final class QueryImpl implements Automata.Query {
+        int x, y, z;
+        // Local cache
+        long[] localStates;
+
+        void updateLocal(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.localStates = null;
+        }
+
+        @Override
+        public int stateIndex(Automata.CellRule.State state) {
+            // The block state is not part of the rules mapping, it is always stored at index 0
+            if (state.equals(Automata.CellRule.BLOCK_STATE)) return 0;
+            final int index = rulesMapping.getOrDefault(state, -1);
+            if (index >= 0) return index;
+            throw new IllegalArgumentException("Unknown state: " + state);
+        }
+
+        @Override
+        public long state(int index) {
+            if (localStates != null) return localStates[index];
+            return value(x, y, z, index);
+        }
+
+        @Override
+        public long[] queryIndexes() {
+            if (localStates != null) return localStates;
+            return this.localStates = queryIndexes(0, 0, 0);
+        }
+
+        @Override
+        public long stateAt(int x, int y, int z, int index) {
+            return value(this.x + x, this.y + y, this.z + z, index);
+        }
+
+        @Override
+        public long[] queryIndexes(int x, int y, int z) {
+            x += this.x;
+            y += this.y;
+            z += this.z;
+            if (!inBounds(x, y, z)) return new long[]{0};
+            final int cellIndex = cellIndex(x, y, z);
+            long[] indexes = new long[states.length + 1];
+            indexes[0] = blocks[cellIndex];
+            for (int i = 0; i < states.length; i++) indexes[i + 1] = states[i][cellIndex];
+            return indexes;
+        }
+
+        @Override
+        public long random() {
+            // Same value as the lazy backend for the same cell
+            return RandomTickSet.cellRandom(randomTickSeed, sectionIndexGlobal(x, y, z), generation,
+                    sectionBlockIndex(globalToSectionRelative(x), globalToSectionRelative(y), globalToSectionRelative(z)));
+        }
+
+        @Override
+        public Map<String, Long> queryNames(int x, int y, int z) {
+            x += this.x;
+            y += this.y;
+            z += this.z;
+            Map<String, Long> names = new HashMap<>();
+            names.put(Automata.CellRule.BLOCK_STATE.name(), value(x, y, z, 0));
+            for (Map.Entry<Automata.CellRule.State, Integer> entry : rulesMapping.entrySet()) {
+                names.put(entry.getKey().name(), value(x, y, z, entry.getValue()));
+            }
+            return names;
+        }
+    }
+}
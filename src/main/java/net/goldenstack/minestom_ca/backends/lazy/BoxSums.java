@@ -0,0 +1,99 @@
+package net.goldenstack.minestom_ca.backends.lazy;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
+
+import java.util.List;
+
+/**
+ * Summed-area table of a predicate over a section and the cells within reach of its boxes, so that each box is
+ * counted from 8 corners whatever its size.
+ * <p>
+ * The table is only built once counting the boxes directly would have cost as much as building it, sections with few
+ * evaluated cells keep reading the cells.
+ */
+public final class BoxSums {
+    private final List<Neighbors.Box> boxes;
+    private final Automata.Query.CellPredicate predicate;
+    private final int reach;
+    private final int size;
+    private final long volume;
+    private int[] sums;
+
+    private long section;
+    private int stamp;
+    private boolean built;
+    private long directCost;
+
+    public BoxSums(List<Neighbors.Box> boxes, Automata.Query.CellPredicate predicate) {
+        this.boxes = boxes;
+        this.predicate = predicate;
+        int reach = 0;
+        long volume = 0;
+        for (Neighbors.Box box : boxes) {
+            reach = Math.max(reach, box.reach());
+            volume += box.volume();
+        }
+        this.reach = reach;
+        this.size = 16 + 2 * reach;
+        this.volume = volume;
+    }
+
+    /**
+     * Counts the cells of the boxes matching the predicate.
+     *
+     * @param query   the query, positioned on the counted cell
+     * @param section the index of the section of the cell
+     * @param stamp   changed whenever the world may have changed
+     * @param x       the x coordinate of the cell in its section
+     * @param y       the y coordinate of the cell in its section
+     * @param z       the z coordinate of the cell in its section
+     * @return the count, -1 if the boxes should be counted directly
+     */
+    public int count(Automata.Query query, long section, int stamp, int x, int y, int z) {
+        if (this.section != section || this.stamp != stamp) {
+            this.section = section;
+            this.stamp = stamp;
+            this.built = false;
+            this.directCost = 0;
+        }
+        if (!built) {
+            final long side = size + 1;
+            directCost += volume;
+            if (directCost < side * side * side) return -1;
+            build(query, x, y, z);
+        }
+        int count = 0;
+        for (Neighbors.Box box : boxes) {
+            final int x0 = x + reach + box.minX(), x1 = x + reach + box.maxX() + 1;
+            final int y0 = y + reach + box.minY(), y1 = y + reach + box.maxY() + 1;
+            final int z0 = z + reach + box.minZ(), z1 = z + reach + box.maxZ() + 1;
+            count += sums[index(x1, y1, z1)] - sums[index(x0, y1, z1)] - sums[index(x1, y0, z1)] - sums[index(x1, y1, z0)]
+                    + sums[index(x0, y0, z1)] + sums[index(x0, y1, z0)] + sums[index(x1, y0, z0)] - sums[index(x0, y0, z0)];
+        }
+        return count;
+    }
+
+    private void build(Automata.Query query, int x, int y, int z) {
+        final int side = size + 1;
+        if (sums == null) sums = new int[side * side * side];
+        // Row and plane 0 stay at 0
+        for (int i = 1; i < side; i++) {
+            for (int j = 1; j < side; j++) {
+                for (int k = 1; k < side; k++) {
+                    final boolean matches = predicate.test(query, i - 1 - reach - x, j - 1 - reach - y, k - 1 - reach - z);
+                    sums[index(i, j, k)] = (matches ? 1 : 0)
+                            + sums[index(i - 1, j, k)] + sums[index(i, j - 1, k)] + sums[index(i, j, k - 1)]
+                            - sums[index(i - 1, j - 1, k)] - sums[index(i - 1, j, k - 1)] - sums[index(i, j - 1, k - 1)]
+                            + sums[index(i - 1, j - 1, k - 1)];
+                }
+            }
+        }
+        this.built = true;
+    }
+
+    private int index(int x, int y, int z) {
+        final int side = size + 1;
+        return (x * side + y) * side + z;
+    }
+}
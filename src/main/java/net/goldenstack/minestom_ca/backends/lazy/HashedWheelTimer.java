@@ -9,6 +9,7 @@ public final class HashedWheelTimer<T> {
     private final Set<ScheduledTask>[] wheel;
     private final int wheelSize;
     private int currentTick = 0;
+    private int size = 0;
     private final AtomicLong taskIdGen = new AtomicLong();
 
     public HashedWheelTimer(int wheelSize) {
@@ -20,12 +21,12 @@ public final class HashedWheelTimer<T> {
     public ScheduledTask schedule(Supplier<T> task, int delayTicks) {
         int scheduledTick = (currentTick + delayTicks) % wheelSize;
         ScheduledTask scheduledTask = new ScheduledTask(taskIdGen.incrementAndGet(), scheduledTick, task);
-        wheel[scheduledTick].add(scheduledTask);
+        if (wheel[scheduledTick].add(scheduledTask)) size++;
         return scheduledTask;
     }
 
     public void cancel(ScheduledTask task) {
-        wheel[task.scheduledTick].remove(task);
+        if (wheel[task.scheduledTick].remove(task)) size--;
     }
 
     public void tick(Consumer<T> consumer) {
@@ -35,6 +36,7 @@ public final class HashedWheelTimer<T> {
                 final T value = task.run();
                 if (value != null) consumer.accept(value);
             }
+            size -= tasks.size();
             tasks.clear();
         }
         currentTick = (currentTick + 1) % wheelSize;
@@ -56,14 +58,19 @@ public final class HashedWheelTimer<T> {
             }
             tasks.clear();
         }
+        size = 0;
         return result;
     }
 
     public boolean isEmpty() {
-        for (Set<ScheduledTask> tasks : wheel) {
-            if (!tasks.isEmpty()) return false;
-        }
-        return true;
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of tasks waiting to fire.
+     */
+    public int size() {
+        return size;
     }
 
     public final class ScheduledTask {
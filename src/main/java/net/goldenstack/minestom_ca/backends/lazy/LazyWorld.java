@@ -4,37 +4,61 @@ import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2LongMap;
 import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongArrayList;
-import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.goldenstack.minestom_ca.Automata;
 import net.goldenstack.minestom_ca.Neighbors;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
+import net.goldenstack.minestom_ca.metrics.SectionActivity;
+import net.goldenstack.minestom_ca.metrics.TickEvent;
+import net.goldenstack.minestom_ca.metrics.TickPhase;
+import net.goldenstack.minestom_ca.metrics.TickStatistics;
+import net.goldenstack.minestom_ca.metrics.WorldCounters;
 import net.minestom.server.coordinate.Point;
+import net.minestom.server.entity.Player;
+import net.minestom.server.event.EventDispatcher;
 import net.minestom.server.instance.Chunk;
 import net.minestom.server.instance.Instance;
+import net.minestom.server.instance.LightingChunk;
 import net.minestom.server.instance.Section;
 import net.minestom.server.instance.block.Block;
 import net.minestom.server.instance.palette.Palette;
 import net.minestom.server.network.packet.server.play.MultiBlockChangePacket;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static net.goldenstack.minestom_ca.CoordConversionPro.*;
+import static net.minestom.server.coordinate.CoordConversion.chunkIndex;
+import static net.minestom.server.coordinate.CoordConversion.chunkIndexGetX;
+import static net.minestom.server.coordinate.CoordConversion.chunkIndexGetZ;
+import static net.minestom.server.coordinate.CoordConversion.globalToChunk;
 import static net.minestom.server.coordinate.CoordConversion.globalToSectionRelative;
 
 @SuppressWarnings("UnstableApiUsage")
 public final class LazyWorld implements Automata.World {
-    private static final int LIGHT_SPEED = 1;
     private final Instance instance;
     private final QueryImpl query = new QueryImpl();
     private final int sectionCount;
     private final int minY;
 
+    // Rules being ticked, the profiled version of `baseRules` when profiling
     private Automata.CellRule rules;
+    private Automata.CellRule baseRules;
+    private RuleProfiler profiler;
     private List<Automata.CellRule.State> orderedStates;
     private Map<Automata.CellRule.State, Integer> rulesMapping;
     private StateLayout stateLayout;
@@ -42,6 +66,64 @@ public final class LazyWorld implements Automata.World {
     private final HashedWheelTimer<ScheduledChange> wheelTimer = new HashedWheelTimer<>(255);
     private final Long2ObjectMap<LSection> loadedSections = new Long2ObjectOpenHashMap<>();
     private final Set<LSection> trackedSections = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Blocks tracked by every section, including the held ones, kept up to date so that the gauge is never recounted
+    private long trackedBlockCount;
+
+    // Sections with block changes not yet sent to viewers
+    private final Set<LSection> changedSections = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Chunks modified during the current tick, invalidated once at the end of it
+    private final LongSet dirtyChunks = new LongOpenHashSet();
+    // Sections whose light-relevant blocks changed during the current tick
+    private final LongSet relightSections = new LongOpenHashSet();
+    private boolean relight = false;
+
+    // Index of the last section processed by a tick cut short by the budget, the next tick resumes after it
+    private long resumeAfter;
+    private boolean resuming = false;
+    private long tickBudget = 0;
+
+    // Generations to run every `ticksPerStep` ticks
+    private int generationsPerStep = 1;
+    private int ticksPerStep = 1;
+    private int generationCredit = 0;
+
+    // Time spent in each phase during the current tick
+    private final long[] phaseNanos = new long[TickPhase.VALUES.length];
+    private final TickStatistics statistics = new TickStatistics();
+    private final WorldCounters counters = new WorldCounters();
+    private int packetsSent = 0;
+    private long activityEpoch = 0;
+    private long generation = 0;
+
+    // Level of detail, regions are chunk columns
+    private @Nullable DetailPolicy detailPolicy;
+    private final Long2ObjectMap<Detail> regionDetails = new Long2ObjectOpenHashMap<>();
+    // Generations each region is behind the world, absent when up to date
+    private final Long2IntOpenHashMap regionLag = new Long2IntOpenHashMap();
+    private final LongSet heldRegions = new LongOpenHashSet();
+    private final LongSet caughtUpRegions = new LongOpenHashSet();
+    // Sections of frozen regions, kept out of the tracked sections until their region thaws
+    private final Long2ObjectMap<Set<LSection>> frozenSections = new Long2ObjectOpenHashMap<>();
+    private long detailTicks = 0;
+    private boolean reducedDue = false;
+    private boolean catchingUp = false;
+
+    // Runaway growth detection, regions are chunk columns
+    private @Nullable GrowthPolicy growthPolicy;
+    private Long2LongMap regionTrackedBlocks = new Long2LongOpenHashMap();
+    private final Long2ObjectMap<Region> limitedRegions = new Long2ObjectOpenHashMap<>();
+    // Wake points of the applied actions, registered once all changes are applied
+    private final List<Wake> pendingWakes = new ArrayList<>();
+    // External block changes, produced by any thread and consumed by the ticking thread
+    private final Queue<Runnable> placements = new ConcurrentLinkedQueue<>();
+
+    // Random ticks
+    private int randomTickSpeed = 3;
+    private long randomTickSeed = 0;
+    private final Set<LSection> randomTickSections = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Block states resolved with `CellRule#randomTicked`, and those that are random-ticked
+    private final BitSet resolvedStates = new BitSet();
+    private final BitSet randomTickedStates = new BitSet();
 
     // Layout information for states
     private static final class StateLayout {
@@ -61,7 +143,7 @@ public final class LazyWorld implements Automata.World {
                 final Automata.CellRule.State state = states.get(i);
                 final int bitSize = state.bitSize();
                 this.stateBitSizes[i] = bitSize;
-                this.stateMasks[i] = (1L << bitSize) - 1;
+                this.stateMasks[i] = bitSize == 64 ? -1L : (1L << bitSize) - 1;
                 this.bitsPerLong[i] = 64 / bitSize; // How many values per long
 
                 // Calculate required longs and segment size
@@ -78,6 +160,11 @@ public final class LazyWorld implements Automata.World {
         private MemorySegment[] stateSegments; // One segment per state
         // Block indexes to track next tick
         private final BitSet trackedBlocks = new BitSet((int) BLOCKS_PER_SECTION);
+        // Block indexes whose block state changed since the last packet
+        private final BitSet changedBlocks = new BitSet((int) BLOCKS_PER_SECTION);
+        private final SectionActivity activity = new SectionActivity();
+        // Cells receiving random ticks, null until the section has one
+        private RandomTickSet randomTicks;
 
         LSection(final long index) {
             this.index = index;
@@ -87,6 +174,32 @@ public final class LazyWorld implements Automata.World {
             }
         }
 
+        /**
+         * Tracks a block next tick.
+         */
+        void track(int blockIndex) {
+            if (trackedBlocks.get(blockIndex)) return;
+            trackedBlocks.set(blockIndex);
+            trackedBlockCount++;
+        }
+
+        /**
+         * Tracks blocks next tick.
+         */
+        void track(BitSet blocks) {
+            final int before = trackedBlocks.cardinality();
+            trackedBlocks.or(blocks);
+            trackedBlockCount += trackedBlocks.cardinality() - before;
+        }
+
+        /**
+         * Stops tracking the blocks of the section.
+         */
+        void untrack() {
+            trackedBlockCount -= trackedBlocks.cardinality();
+            trackedBlocks.clear();
+        }
+
         long getState(int x, int y, int z, int stateIndex) {
             final int blockIndex = sectionBlockIndex(x, y, z);
             final int bitSize = stateLayout.stateBitSizes[stateIndex];
@@ -152,6 +265,9 @@ public final class LazyWorld implements Automata.World {
         int localX, localY, localZ;
         // Local cache
         long[] localStates;
+        // Box sums of the wide neighborhoods, invalidated by incrementing the stamp whenever the world may change
+        final Map<List<Neighbors.Box>, BoxSums> boxSums = new IdentityHashMap<>();
+        int boxStamp;
 
         void updateLocal(LSection section, Palette palette, int x, int y, int z) {
             this.section = section;
@@ -164,6 +280,8 @@ public final class LazyWorld implements Automata.World {
 
         @Override
         public int stateIndex(Automata.CellRule.State state) {
+            // The block state is not part of the rules mapping, it is always stored at index 0
+            if (state.equals(Automata.CellRule.BLOCK_STATE)) return 0;
             final int index = rulesMapping.getOrDefault(state, -1);
             if (index >= 0) return index;
             throw new IllegalArgumentException("Unknown state: " + state);
@@ -197,6 +315,13 @@ public final class LazyWorld implements Automata.World {
             return indexes;
         }
 
+        @Override
+        public long random() {
+            return RandomTickSet.cellRandom(randomTickSeed, sectionIndexGlobal(localX, localY, localZ), generation,
+                    sectionBlockIndex(globalToSectionRelative(localX), globalToSectionRelative(localY),
+                            globalToSectionRelative(localZ)));
+        }
+
         boolean sameSection(int x, int y, int z) {
             return section != null && sectionIndexGlobal(x, y, z) == section.index;
         }
@@ -228,6 +353,15 @@ public final class LazyWorld implements Automata.World {
             return section.getState(localX, localY, localZ, index - 1);
         }
 
+        @Override
+        public int countBoxes(List<Neighbors.Box> boxes, CellPredicate predicate) {
+            if (section == null) return Automata.Query.super.countBoxes(boxes, predicate);
+            final BoxSums sums = boxSums.computeIfAbsent(boxes, _ -> new BoxSums(boxes, predicate));
+            final int count = sums.count(this, section.index, boxStamp, globalToSectionRelative(localX),
+                    globalToSectionRelative(localY), globalToSectionRelative(localZ));
+            return count >= 0 ? count : Automata.Query.super.countBoxes(boxes, predicate);
+        }
+
         static final long[] EMPTY_INDEXES = new long[]{0};
 
         @Override
@@ -300,22 +434,549 @@ public final class LazyWorld implements Automata.World {
             final Automata.CellRule.State state = orderedStates.get(i);
             mapping.put(state, i + 1); // index 0 is reserved for block state
         }
-        rules.init(mapping);
-        this.rules = rules;
+        this.baseRules = rules;
+        this.rules = profiler != null ? rules.profiled(profiler, "rules") : rules;
+        this.rules.init(mapping);
         this.rulesMapping = mapping;
+        this.resolvedStates.clear();
+        this.randomTickedStates.clear();
+        this.query.boxSums.clear();
     }
 
     @Override
     public Automata.Metrics tick() {
-        if (trackedSections.isEmpty() && wheelTimer.isEmpty()) return Automata.Metrics.EMPTY;
+        final TickEvent event = new TickEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        Arrays.fill(phaseNanos, 0);
+        drainPlacements();
+        activityEpoch = counters.ticks() / SectionActivity.BUCKET_TICKS;
+        final Automata.Metrics metrics = tickGenerations();
+        statistics.record(System.nanoTime() - start, phaseNanos);
+        event.complete(instance.getUuid().toString(), metrics, phaseNanos);
+        updateCounters(metrics);
+        checkGrowth();
+        return metrics;
+    }
+
+    private void updateCounters(Automata.Metrics metrics) {
+        counters.recordTick(metrics, packetsSent);
+        packetsSent = 0;
+        long sectionBytes = 0;
+        for (long size : stateLayout.segmentSizes) sectionBytes += size;
+        counters.updateGauges(trackedSections.size(), trackedBlockCount, wheelTimer.size(),
+                sectionBytes * loadedSections.size());
+    }
+
+    private Automata.Metrics tickGenerations() {
+        generationCredit += generationsPerStep;
+        final int generations = generationCredit / ticksPerStep;
+        generationCredit %= ticksPerStep;
+        if (generations == 0) return Automata.Metrics.EMPTY;
+        // Before the idle check, frozen regions may thaw
+        if (detailPolicy != null) updateDetails();
+        if (idle()) return Automata.Metrics.EMPTY;
+        Automata.Metrics metrics = Automata.Metrics.EMPTY;
+        final long deadline = tickBudget > 0 ? System.nanoTime() + tickBudget : Long.MAX_VALUE;
+        for (int i = 0; i < generations; i++) {
+            final Automata.Metrics tickMetrics = singleTick(deadline, false);
+            metrics = metrics.add(tickMetrics);
+            if (System.nanoTime() - deadline >= 0) {
+                // Generations cut off by the budget run on the next ticks, up to one step's worth so that an
+                // overloaded world drops generations rather than falling further behind every tick
+                final long carried = generationCredit + (long) (generations - i - 1) * ticksPerStep;
+                generationCredit = (int) Math.min(carried, (long) generationsPerStep * ticksPerStep);
+                break;
+            }
+        }
+        // Caught up generations only add to the processed counts, the deferred ones stay those of the last generation
+        if (detailPolicy != null && !regionLag.isEmpty()) metrics = catchUp(deadline).add(metrics);
+        final long networkStart = System.nanoTime();
+        flushChunks();
+        phaseNanos[TickPhase.NETWORK.ordinal()] += System.nanoTime() - networkStart;
+        return metrics;
+    }
+
+    @Override
+    public TickStatistics tickStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public WorldCounters counters() {
+        return counters;
+    }
+
+    /**
+     * Simulates regions at a rate depending on their distance to the players viewing them.
+     * <p>
+     * Distances are measured in chunks from the nearest viewer of the region. Reduced regions run all the generations
+     * they missed at once every {@code reducedRate} ticks, so every region ends up at the same generation, except
+     * frozen ones which are paused.
+     *
+     * @param fullRadius   the distance up to which regions are simulated every generation
+     * @param reducedRate  the number of ticks between two simulations of farther regions
+     * @param freezeRadius the distance beyond which regions are frozen, or 0 to never freeze them
+     */
+    public record DetailPolicy(int fullRadius, int reducedRate, int freezeRadius) {
+        public DetailPolicy {
+            if (fullRadius < 0) throw new IllegalArgumentException("Full radius cannot be negative");
+            if (reducedRate <= 0) throw new IllegalArgumentException("Reduced rate must be positive");
+            if (freezeRadius < 0) throw new IllegalArgumentException("Freeze radius cannot be negative");
+            if (freezeRadius != 0 && freezeRadius <= fullRadius) {
+                throw new IllegalArgumentException("Freeze radius must be greater than the full radius");
+            }
+        }
+    }
+
+    private enum Detail {
+        FULL, REDUCED, FROZEN
+    }
+
+    /**
+     * Sets the level of detail policy.
+     *
+     * @param policy the policy, or null to simulate every region at full rate
+     */
+    public void setDetailPolicy(@Nullable DetailPolicy policy) {
+        this.detailPolicy = policy;
+        this.regionDetails.clear();
+        this.regionLag.clear();
+        thawSections();
+    }
+
+    /**
+     * Gets the generation a region has been simulated up to.
+     */
+    public long regionGeneration(int chunkX, int chunkZ) {
+        return generation - regionLag.get(chunkIndex(chunkX, chunkZ));
+    }
+
+    private void updateDetails() {
+        final DetailPolicy policy = this.detailPolicy;
+        assert policy != null;
+        regionDetails.clear();
+        // Counts the ticks that run generations, so that reduced regions are due even with slow generation rates
+        reducedDue = detailTicks++ % policy.reducedRate() == 0;
+        // Thawed regions resume where they were paused
+        for (LongIterator iterator = frozenSections.keySet().iterator(); iterator.hasNext(); ) {
+            final long regionIndex = iterator.nextLong();
+            if (regionDetail(regionIndex) == Detail.FROZEN) continue;
+            trackedSections.addAll(frozenSections.get(regionIndex));
+            iterator.remove();
+        }
+    }
+
+    private void thawSections() {
+        for (Set<LSection> sections : frozenSections.values()) trackedSections.addAll(sections);
+        frozenSections.clear();
+    }
+
+    private Detail regionDetail(long regionIndex) {
+        Detail detail = regionDetails.get(regionIndex);
+        if (detail != null) return detail;
+        final DetailPolicy policy = this.detailPolicy;
+        assert policy != null;
+        final int chunkX = chunkIndexGetX(regionIndex);
+        final int chunkZ = chunkIndexGetZ(regionIndex);
+        final Chunk chunk = instance.getChunk(chunkX, chunkZ);
+        int distance = Integer.MAX_VALUE;
+        if (chunk != null) {
+            for (Player viewer : chunk.getViewers()) {
+                final Point position = viewer.getPosition();
+                distance = Math.min(distance, Math.max(Math.abs(position.chunkX() - chunkX), Math.abs(position.chunkZ() - chunkZ)));
+            }
+        }
+        if (distance <= policy.fullRadius()) detail = Detail.FULL;
+        else if (policy.freezeRadius() == 0 || distance <= policy.freezeRadius()) detail = Detail.REDUCED;
+        else detail = Detail.FROZEN;
+        regionDetails.put(regionIndex, detail);
+        return detail;
+    }
+
+    /**
+     * Keeps a section from being processed this generation according to the level of detail of its region.
+     *
+     * @return true if the section must be skipped
+     */
+    private boolean holdDetail(LSection section) {
+        final long regionIndex = regionIndex(section);
+        final Detail detail = regionDetail(regionIndex);
+        if (detail == Detail.FROZEN) {
+            // Paused rather than late, and parked rather than tracked so that a world with only frozen regions is idle
+            Set<LSection> sections = frozenSections.get(regionIndex);
+            if (sections == null) {
+                sections = Collections.newSetFromMap(new IdentityHashMap<>());
+                frozenSections.put(regionIndex, sections);
+            }
+            sections.add(section);
+            return true;
+        }
+        final boolean due = detail == Detail.FULL || (detail == Detail.REDUCED && reducedDue);
+        if (catchingUp) {
+            if (due && regionLag.get(regionIndex) > 0) {
+                caughtUpRegions.add(regionIndex);
+                return false;
+            }
+        } else {
+            if (due) return false;
+            if (heldRegions.add(regionIndex)) regionLag.addTo(regionIndex, 1);
+        }
+        trackedSections.add(section);
+        return true;
+    }
+
+    /**
+     * Runs the generations missed by the due regions, as long as the tick budget allows.
+     */
+    private Automata.Metrics catchUp(long deadline) {
         Automata.Metrics metrics = Automata.Metrics.EMPTY;
-        for (int i = 0; i < LIGHT_SPEED; i++) {
-            final Automata.Metrics tickMetrics = singleTick();
+        while (!regionLag.isEmpty() && System.nanoTime() - deadline < 0) {
+            caughtUpRegions.clear();
+            final Automata.Metrics tickMetrics = singleTick(deadline, true);
             metrics = metrics.add(tickMetrics);
+            // Every tracked section was reached, so due regions left behind are idle and have nothing to catch up.
+            // Regions cut off by the budget keep their lag for the next tick.
+            if (tickMetrics.deferredSections() == 0) {
+                for (LongIterator iterator = regionLag.keySet().iterator(); iterator.hasNext(); ) {
+                    final long regionIndex = iterator.nextLong();
+                    final Detail detail = regionDetail(regionIndex);
+                    final boolean due = detail == Detail.FULL || (detail == Detail.REDUCED && reducedDue);
+                    if (due && !caughtUpRegions.contains(regionIndex)) iterator.remove();
+                }
+            }
+            if (caughtUpRegions.isEmpty()) break;
+            for (LongIterator iterator = caughtUpRegions.iterator(); iterator.hasNext(); ) {
+                final long regionIndex = iterator.nextLong();
+                if (regionLag.addTo(regionIndex, -1) <= 1) regionLag.remove(regionIndex);
+            }
         }
+        catchingUp = false;
         return metrics;
     }
 
+    /**
+     * Limits the growth of the tracked blocks of each chunk column.
+     *
+     * @param checkInterval the number of ticks between two growth measurements
+     * @param maxGrowth     the maximum number of tracked blocks a region may gain between two measurements
+     * @param response      what happens to regions growing faster
+     * @param throttleRate  for {@link Response#THROTTLE}, the number of generations between two ticks of the region
+     */
+    public record GrowthPolicy(int checkInterval, long maxGrowth, Response response, int throttleRate) {
+        public enum Response {
+            /**
+             * Ticks the region once every {@code throttleRate} generations.
+             */
+            THROTTLE,
+            /**
+             * Stops ticking the region, parking its tracked blocks and timers until it is resumed.
+             */
+            FREEZE
+        }
+
+        public GrowthPolicy {
+            if (checkInterval <= 0) throw new IllegalArgumentException("Check interval must be positive");
+            if (maxGrowth <= 0) throw new IllegalArgumentException("Max growth must be positive");
+            Objects.requireNonNull(response);
+            if (throttleRate <= 0) throw new IllegalArgumentException("Throttle rate must be positive");
+        }
+    }
+
+    /**
+     * A region currently limited by the growth policy.
+     */
+    public record LimitedRegion(int chunkX, int chunkZ, long growth, GrowthPolicy.Response response) {
+    }
+
+    private static final class Region {
+        private final GrowthPolicy.Response response;
+        private final int throttleRate;
+        private final long growth;
+        private final Map<LSection, BitSet> parkedBlocks = new IdentityHashMap<>();
+        private final List<ScheduledChange> parkedChanges = new ArrayList<>();
+
+        Region(GrowthPolicy.Response response, int throttleRate, long growth) {
+            this.response = response;
+            this.throttleRate = throttleRate;
+            this.growth = growth;
+        }
+    }
+
+    /**
+     * Sets the policy applied to regions whose tracked blocks grow too fast.
+     * <p>
+     * Regions already limited stay limited until resumed.
+     *
+     * @param policy the growth policy, or null to disable the detection
+     */
+    public void setGrowthPolicy(@Nullable GrowthPolicy policy) {
+        this.growthPolicy = policy;
+        this.regionTrackedBlocks = new Long2LongOpenHashMap();
+    }
+
+    public List<LimitedRegion> limitedRegions() {
+        List<LimitedRegion> regions = new ArrayList<>(limitedRegions.size());
+        for (Long2ObjectMap.Entry<Region> entry : limitedRegions.long2ObjectEntrySet()) {
+            final Region region = entry.getValue();
+            regions.add(new LimitedRegion(chunkIndexGetX(entry.getLongKey()), chunkIndexGetZ(entry.getLongKey()),
+                    region.growth, region.response));
+        }
+        return regions;
+    }
+
+    /**
+     * Lets a limited region tick normally again, restoring its parked blocks and timers.
+     *
+     * @return true if the region was limited
+     */
+    public boolean resumeRegion(int chunkX, int chunkZ) {
+        final long regionIndex = chunkIndex(chunkX, chunkZ);
+        final Region region = limitedRegions.remove(regionIndex);
+        if (region == null) return false;
+        region.parkedBlocks.forEach((section, blocks) -> {
+            section.track(blocks);
+            trackedSections.add(section);
+        });
+        for (ScheduledChange change : region.parkedChanges) wheelTimer.schedule(() -> change, 1);
+        // Measure the growth again from the restored state
+        regionTrackedBlocks.remove(regionIndex);
+        return true;
+    }
+
+    private static long regionIndex(LSection section) {
+        return chunkIndex(sectionIndexGetX(section.index), sectionIndexGetZ(section.index));
+    }
+
+    /**
+     * Keeps a section of a limited region from being processed this generation.
+     *
+     * @return true if the section must be skipped
+     */
+    private boolean holdSection(LSection section) {
+        final Region region = limitedRegions.get(regionIndex(section));
+        if (region == null) return false;
+        switch (region.response) {
+            case THROTTLE -> {
+                if (generation % region.throttleRate == 0) return false;
+                trackedSections.add(section);
+            }
+            case FREEZE -> {
+                region.parkedBlocks.computeIfAbsent(section, _ -> new BitSet()).or(section.trackedBlocks);
+                section.untrack();
+            }
+        }
+        return true;
+    }
+
+    private void checkGrowth() {
+        final GrowthPolicy policy = this.growthPolicy;
+        if (policy == null || counters.ticks() % policy.checkInterval() != 0) return;
+        Long2LongOpenHashMap current = new Long2LongOpenHashMap();
+        for (LSection section : trackedSections) {
+            current.addTo(regionIndex(section), section.trackedBlocks.cardinality());
+        }
+        for (Long2LongMap.Entry entry : current.long2LongEntrySet()) {
+            final long regionIndex = entry.getLongKey();
+            // Regions seen for the first time only set the baseline, chunk loads track whole columns at once
+            if (limitedRegions.containsKey(regionIndex) || !regionTrackedBlocks.containsKey(regionIndex)) continue;
+            final long growth = entry.getLongValue() - regionTrackedBlocks.get(regionIndex);
+            if (growth > policy.maxGrowth()) limitRegion(regionIndex, growth, policy);
+        }
+        this.regionTrackedBlocks = current;
+    }
+
+    private void limitRegion(long regionIndex, long growth, GrowthPolicy policy) {
+        final int chunkX = chunkIndexGetX(regionIndex);
+        final int chunkZ = chunkIndexGetZ(regionIndex);
+        RegionLimitEvent event = new RegionLimitEvent(instance, chunkX, chunkZ, growth, policy.response());
+        EventDispatcher.callCancellable(event, () -> {
+            limitedRegions.put(regionIndex, new Region(policy.response(), policy.throttleRate(), growth));
+            if (policy.response() == GrowthPolicy.Response.FREEZE) {
+                for (LSection section : new ArrayList<>(trackedSections)) {
+                    if (regionIndex(section) == regionIndex && holdSection(section)) trackedSections.remove(section);
+                }
+            }
+        });
+    }
+
+    /**
+     * Activity of a section over the last {@link TickStatistics#WINDOW} ticks.
+     */
+    public record SectionReport(int sectionX, int sectionY, int sectionZ, SectionActivity.Snapshot activity) {
+    }
+
+    /**
+     * Gets the sections that did the most work recently, hottest first.
+     */
+    public List<SectionReport> hottestSections(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit cannot be negative");
+        List<SectionReport> reports = new ArrayList<>();
+        for (LSection section : loadedSections.values()) {
+            final SectionActivity.Snapshot activity = section.activity.snapshot(activityEpoch);
+            if (activity.heat() == 0) continue;
+            reports.add(new SectionReport(sectionIndexGetX(section.index), sectionIndexGetY(section.index),
+                    sectionIndexGetZ(section.index), activity));
+        }
+        reports.sort(Comparator.comparingLong((SectionReport report) -> report.activity().heat()).reversed());
+        return reports.size() > limit ? List.copyOf(reports.subList(0, limit)) : reports;
+    }
+
+    /**
+     * Writes the recent activity summed per chunk column as CSV, one line per active chunk.
+     */
+    public void exportHeatmap(Path path) throws IOException {
+        Long2ObjectMap<SectionActivity.Snapshot> chunks = new Long2ObjectOpenHashMap<>();
+        for (LSection section : loadedSections.values()) {
+            final SectionActivity.Snapshot activity = section.activity.snapshot(activityEpoch);
+            if (activity.heat() == 0) continue;
+            final long chunkIndex = chunkIndex(sectionIndexGetX(section.index), sectionIndexGetZ(section.index));
+            chunks.merge(chunkIndex, activity, SectionActivity.Snapshot::add);
+        }
+        StringBuilder builder = new StringBuilder("chunk_x,chunk_z,ticks_active,cells_processed,writes,wakes,timers\n");
+        for (Long2ObjectMap.Entry<SectionActivity.Snapshot> entry : chunks.long2ObjectEntrySet()) {
+            final SectionActivity.Snapshot activity = entry.getValue();
+            builder.append(chunkIndexGetX(entry.getLongKey()))
+                    .append(',').append(chunkIndexGetZ(entry.getLongKey()))
+                    .append(',').append(activity.ticksActive())
+                    .append(',').append(activity.cellsProcessed())
+                    .append(',').append(activity.writes())
+                    .append(',').append(activity.wakes())
+                    .append(',').append(activity.timers())
+                    .append('\n');
+        }
+        Files.writeString(path, builder.toString());
+    }
+
+    /**
+     * Result of {@link #fastForward(int, long)}.
+     *
+     * @param generations     the number of generations simulated
+     * @param processedBlocks the number of cells evaluated over all generations
+     * @param nanos           the time taken, including the final resync
+     */
+    public record FastForward(int generations, long processedBlocks, long nanos) {
+        public double generationsPerSecond() {
+            return nanos == 0 ? 0 : generations * 1e9 / nanos;
+        }
+
+        public double cellsPerSecond() {
+            return nanos == 0 ? 0 : processedBlocks * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Advances the simulation by a number of generations as fast as possible.
+     * <p>
+     * No packets are sent and no chunk is invalidated while simulating, modified chunks are resent once at the end.
+     * Stops early if the world becomes idle.
+     *
+     * @param generations the maximum number of generations to simulate
+     * @return the simulation statistics
+     */
+    public FastForward fastForward(int generations) {
+        return fastForward(generations, Long.MAX_VALUE);
+    }
+
+    /**
+     * Advances the simulation by a number of generations as fast as possible, within a time limit.
+     * <p>
+     * Worlds with random ticks are never idle, the limit bounds the time the ticking thread is blocked.
+     *
+     * @param generations the maximum number of generations to simulate
+     * @param maxNanos    the time after which no new generation is started
+     * @return the simulation statistics
+     * @see #fastForward(int)
+     */
+    public FastForward fastForward(int generations, long maxNanos) {
+        if (generations < 0) throw new IllegalArgumentException("Generations cannot be negative");
+        if (maxNanos <= 0) throw new IllegalArgumentException("Time limit must be positive");
+        final long start = System.nanoTime();
+        drainPlacements();
+        // Fast-forwarding simulates every region, leaving their relative lag untouched
+        final DetailPolicy detailPolicy = this.detailPolicy;
+        this.detailPolicy = null;
+        thawSections();
+        long processedBlocks = 0;
+        int simulated = 0;
+        while (simulated < generations && !idle() && System.nanoTime() - start < maxNanos) {
+            processedBlocks += singleTick(Long.MAX_VALUE, false).processedBlocks();
+            simulated++;
+        }
+        this.detailPolicy = detailPolicy;
+        resyncChunks();
+        return new FastForward(simulated, processedBlocks, System.nanoTime() - start);
+    }
+
+    private boolean idle() {
+        return trackedSections.isEmpty() && wheelTimer.isEmpty() && randomTickSections.isEmpty();
+    }
+
+    /**
+     * Sets how many random ticks each section receives per generation, vanilla uses 3.
+     * <p>
+     * Each section samples its random-ticked cells with a generator only depending on the seed, the section and the
+     * generation, so the cost grows with the number of sections rather than the number of cells.
+     *
+     * @param cellsPerSection the number of cells sampled per section, 0 to disable random ticks
+     * @param seed            the seed of the samples
+     */
+    public void setRandomTicks(int cellsPerSection, long seed) {
+        if (cellsPerSection < 0) throw new IllegalArgumentException("Random tick speed cannot be negative");
+        this.randomTickSpeed = cellsPerSection;
+        this.randomTickSeed = seed;
+    }
+
+    /**
+     * Sets how many generations are simulated per server tick.
+     * <p>
+     * For example {@code (3, 1)} runs three generations every tick, and {@code (1, 4)} runs one generation every four
+     * ticks. Only the state at the end of a tick is sent to viewers, intermediate generations do not build packets.
+     *
+     * @param generations the number of generations to run every {@code ticks} ticks
+     * @param ticks       the number of ticks over which the generations are spread
+     */
+    public void setGenerationRate(int generations, int ticks) {
+        if (generations < 1 || ticks < 1) {
+            throw new IllegalArgumentException("Generation rate must be positive");
+        }
+        this.generationsPerStep = generations;
+        this.ticksPerStep = ticks;
+        this.generationCredit = 0;
+    }
+
+    /**
+     * Gets the number of generations owed to the next ticks, either not due yet or cut off by the tick budget.
+     */
+    public int pendingGenerations() {
+        return generationCredit / ticksPerStep;
+    }
+
+    /**
+     * Limits the time spent evaluating tracked sections each tick.
+     * <p>
+     * Sections are evaluated in a rotating order until the budget is used up, the remaining ones stay tracked and
+     * are evaluated first on the next tick. Generations cut off are run on the next ticks, at most one step of
+     * {@link #setGenerationRate(int, int)} being carried over. This breaks lockstep semantics between sections, rules
+     * relying on them should keep the default budget of {@code 0}, which evaluates every tracked section synchronously.
+     *
+     * @param budgetNanos the budget in nanoseconds, or {@code 0} for strict synchronous ticking
+     */
+    public void setTickBudget(long budgetNanos) {
+        if (budgetNanos < 0) throw new IllegalArgumentException("Tick budget cannot be negative");
+        this.tickBudget = budgetNanos;
+    }
+
+    /**
+     * Enables batched relighting of the sections whose light-relevant blocks changed during a tick.
+     * <p>
+     * Only has an effect on instances using {@link LightingChunk}.
+     */
+    public void setRelight(boolean relight) {
+        this.relight = relight;
+        if (!relight) relightSections.clear();
+    }
+
     private record BlockChange(int sectionBlockIndex, List<Automata.CellRule.Action> actions) {
     }
 
@@ -325,19 +986,68 @@ public final class LazyWorld implements Automata.World {
     private record SectionChange(LSection section, Palette palette, List<BlockChange> blockChanges) {
     }
 
-    private Automata.Metrics singleTick() {
+    private record Wake(LSection section, int sectionBlockIndex, List<Point> wakePoints) {
+    }
+
+    /**
+     * Simulates one generation.
+     *
+     * @param catchUp whether only regions lagging behind are simulated, without advancing the timers
+     */
+    private Automata.Metrics singleTick(long deadline, boolean catchUp) {
+        this.catchingUp = catchUp;
+        if (!catchUp) {
+            generation++;
+            heldRegions.clear();
+        }
+        // Changes are only applied once all cells are evaluated, box sums stay valid until then
+        query.boxStamp++;
         Queue<SectionChange> changes = new ArrayDeque<>();
-        final Automata.Metrics metrics = computeChanges(changes);
-        computeTimedChanges(changes);
+        final long computeStart = System.nanoTime();
+        final Automata.Metrics metrics = computeChanges(changes, deadline);
+        final long timedStart = System.nanoTime();
+        Automata.Metrics randomMetrics = Automata.Metrics.EMPTY;
+        if (!catchUp) {
+            computeTimedChanges(changes);
+            randomMetrics = computeRandomTicks(changes);
+        }
+        final long applyStart = System.nanoTime();
         applyChanges(changes);
-        return metrics;
+        final long registerStart = System.nanoTime();
+        registerWakes();
+        final long end = System.nanoTime();
+        phaseNanos[TickPhase.COMPUTE.ordinal()] += timedStart - computeStart;
+        phaseNanos[TickPhase.TIMED.ordinal()] += applyStart - timedStart;
+        phaseNanos[TickPhase.APPLY.ordinal()] += registerStart - applyStart;
+        phaseNanos[TickPhase.REGISTER.ordinal()] += end - registerStart;
+        return randomMetrics.add(metrics);
     }
 
-    private Automata.Metrics computeChanges(Queue<SectionChange> changes) {
-        final int processedSections = trackedSections.size();
+    private void registerWakes() {
+        for (Wake wake : pendingWakes) {
+            final LSection section = wake.section();
+            final int blockIndex = wake.sectionBlockIndex();
+            final int globalX = sectionIndexGetX(section.index) * 16 + sectionBlockIndexGetX(blockIndex);
+            final int globalY = sectionIndexGetY(section.index) * 16 + sectionBlockIndexGetY(blockIndex);
+            final int globalZ = sectionIndexGetZ(section.index) * 16 + sectionBlockIndexGetZ(blockIndex);
+            register(globalX, globalY, globalZ, section, wake.wakePoints());
+        }
+        pendingWakes.clear();
+    }
+
+    private Automata.Metrics computeChanges(Queue<SectionChange> changes, long deadline) {
+        final LSection[] sections = scheduledSections();
+        int processedSections = 0;
         int processedBlocks = 0;
         int modifiedBlocks = 0;
-        for (LSection section : trackedSections) {
+        int next = 0;
+        for (; next < sections.length; next++) {
+            final LSection section = sections[next];
+            // Always make progress on at least one section
+            if (processedSections > 0 && System.nanoTime() - deadline >= 0) break;
+            if (!limitedRegions.isEmpty() && holdSection(section)) continue;
+            if (detailPolicy != null && holdDetail(section)) continue;
+            processedSections++;
             List<BlockChange> blockChanges = new ArrayList<>();
             final long sectionIndex = section.index;
             final int sectionX = sectionIndexGetX(sectionIndex);
@@ -346,9 +1056,10 @@ public final class LazyWorld implements Automata.World {
             BitSet trackedBlocks = section.trackedBlocks;
             Palette palette = paletteAtSection(sectionX, sectionY, sectionZ);
             if (palette == null) {
-                trackedBlocks.clear();
+                section.untrack();
                 continue;
             }
+            final int sectionStartBlocks = processedBlocks;
             for (int blockIndex = trackedBlocks.nextSetBit(0);
                  blockIndex >= 0;
                  blockIndex = trackedBlocks.nextSetBit(blockIndex + 1)) {
@@ -363,18 +1074,53 @@ public final class LazyWorld implements Automata.World {
                     blockChanges.add(new BlockChange(blockIndex, actions));
                 }
             }
+            section.activity.recordProcessed(activityEpoch, processedBlocks - sectionStartBlocks);
             if (!blockChanges.isEmpty()) {
                 changes.offer(new SectionChange(section, palette, blockChanges));
             }
+            trackedBlockCount -= processedBlocks - sectionStartBlocks;
             trackedBlocks.clear();
         }
+        // Carry the remaining sections over to the next tick, which resumes after the last processed one
+        resuming = next < sections.length;
+        if (resuming) resumeAfter = sections[next - 1].index;
+        int deferredBlocks = 0;
+        for (int i = next; i < sections.length; i++) {
+            final LSection section = sections[i];
+            trackedSections.add(section);
+            deferredBlocks += section.trackedBlocks.cardinality();
+        }
+        return new Automata.Metrics(processedSections, processedBlocks, modifiedBlocks,
+                sections.length - next, deferredBlocks);
+    }
+
+    /**
+     * Drains the tracked sections.
+     * <p>
+     * After a tick cut short by the budget, the sections are ordered by index starting after the last processed one
+     * and wrapping around, so that every tracked section is reached within a bounded number of ticks.
+     */
+    private LSection[] scheduledSections() {
+        final LSection[] sections = trackedSections.toArray(new LSection[0]);
         trackedSections.clear();
-        return new Automata.Metrics(processedSections, processedBlocks, modifiedBlocks);
+        if (resuming) {
+            final long cursor = resumeAfter;
+            Arrays.sort(sections, Comparator.<LSection>comparingInt(section -> section.index > cursor ? 0 : 1)
+                    .thenComparingLong(section -> section.index));
+        }
+        return sections;
     }
 
     private void computeTimedChanges(Queue<SectionChange> changes) {
         wheelTimer.tick(scheduledChange -> {
             if (scheduledChange == null) return;
+            if (!limitedRegions.isEmpty()) {
+                final Region region = limitedRegions.get(regionIndex(scheduledChange.section));
+                if (region != null && region.response == GrowthPolicy.Response.FREEZE) {
+                    region.parkedChanges.add(scheduledChange);
+                    return;
+                }
+            }
             final BlockChange blockChange = scheduledChange.change;
             LSection section = scheduledChange.section;
             // Find section in changes
@@ -394,6 +1140,80 @@ public final class LazyWorld implements Automata.World {
         });
     }
 
+    private Automata.Metrics computeRandomTicks(Queue<SectionChange> changes) {
+        if (randomTickSpeed == 0 || randomTickSections.isEmpty()) return Automata.Metrics.EMPTY;
+        int processedSections = 0;
+        int processedBlocks = 0;
+        int modifiedBlocks = 0;
+        final Iterator<LSection> iterator = randomTickSections.iterator();
+        while (iterator.hasNext()) {
+            final LSection section = iterator.next();
+            if (holdRandomTicks(section)) continue;
+            final long sectionIndex = section.index;
+            final int sectionX = sectionIndexGetX(sectionIndex);
+            final int sectionY = sectionIndexGetY(sectionIndex);
+            final int sectionZ = sectionIndexGetZ(sectionIndex);
+            final Palette palette = paletteAtSection(sectionX, sectionY, sectionZ);
+            final RandomTickSet cells = section.randomTicks;
+            if (palette == null) {
+                cells.clear();
+                iterator.remove();
+                continue;
+            }
+            processedSections++;
+            List<BlockChange> blockChanges = new ArrayList<>();
+            for (int sample = 0; sample < randomTickSpeed && !cells.isEmpty(); sample++) {
+                final int slot = cells.slot(RandomTickSet.random(randomTickSeed, sectionIndex, generation, sample));
+                final int blockIndex = cells.cell(slot);
+                final int localX = sectionBlockIndexGetX(blockIndex);
+                final int localY = sectionBlockIndexGetY(blockIndex);
+                final int localZ = sectionBlockIndexGetZ(blockIndex);
+                if (!randomTicked(palette.get(localX, localY, localZ))) {
+                    // Changed since it was added
+                    cells.removeSlot(slot);
+                    continue;
+                }
+                processedBlocks++;
+                query.updateLocal(section, palette, sectionX * 16 + localX, sectionY * 16 + localY, sectionZ * 16 + localZ);
+                final List<Automata.CellRule.Action> actions = rules.randomTick(query);
+                if (actions != null) {
+                    modifiedBlocks++;
+                    blockChanges.add(new BlockChange(blockIndex, actions));
+                }
+            }
+            if (!blockChanges.isEmpty()) changes.offer(new SectionChange(section, palette, blockChanges));
+            if (cells.isEmpty()) iterator.remove();
+        }
+        return new Automata.Metrics(processedSections, processedBlocks, modifiedBlocks);
+    }
+
+    /**
+     * Keeps a section from receiving random ticks while its region is limited or not simulated this generation.
+     */
+    private boolean holdRandomTicks(LSection section) {
+        final long regionIndex = regionIndex(section);
+        if (limitedRegions.containsKey(regionIndex)) return true;
+        if (detailPolicy == null) return false;
+        final Detail detail = regionDetail(regionIndex);
+        return detail != Detail.FULL && (detail != Detail.REDUCED || !reducedDue);
+    }
+
+    private boolean randomTicked(int blockState) {
+        if (blockState <= 0) return false;
+        if (!resolvedStates.get(blockState)) {
+            resolvedStates.set(blockState);
+            if (rules.randomTicked(Block.fromStateId(blockState))) randomTickedStates.set(blockState);
+        }
+        return randomTickedStates.get(blockState);
+    }
+
+    private void addRandomTick(LSection section, int blockIndex) {
+        RandomTickSet cells = section.randomTicks;
+        if (cells == null) cells = section.randomTicks = new RandomTickSet();
+        cells.add(blockIndex);
+        randomTickSections.add(section);
+    }
+
     private void applyChanges(Queue<SectionChange> changes) {
         while (!changes.isEmpty()) {
             final SectionChange sectionChange = changes.poll();
@@ -404,30 +1224,18 @@ public final class LazyWorld implements Automata.World {
     private void applySectionChanges(SectionChange sectionChange) {
         final LSection section = sectionChange.section();
         Palette palette = sectionChange.palette();
-        LongList blockChanges = new LongArrayList();
         for (BlockChange currentChange : sectionChange.blockChanges()) {
             for (Automata.CellRule.Action action : currentChange.actions()) {
-                processSectionAction(section, palette, currentChange.sectionBlockIndex(), action, blockChanges);
+                processSectionAction(section, palette, currentChange.sectionBlockIndex(), action);
             }
         }
         trackedSections.add(section);
-        if (!blockChanges.isEmpty()) {
-            final long sectionIndex = section.index;
-            final int sectionX = sectionIndexGetX(sectionIndex);
-            final int sectionY = sectionIndexGetY(sectionIndex);
-            final int sectionZ = sectionIndexGetZ(sectionIndex);
-            final Chunk chunk = instance.getChunk(sectionX, sectionZ);
-            if (chunk != null) {
-                chunk.invalidate();
-                final long[] blocksArray = blockChanges.toLongArray();
-                chunk.sendPacketToViewers(new MultiBlockChangePacket(sectionX, sectionY, sectionZ, blocksArray));
-            }
-        }
     }
 
-    void processSectionAction(LSection section, Palette palette, int sectionBlockIndex, Automata.CellRule.Action action, LongList blockChanges) {
+    void processSectionAction(LSection section, Palette palette, int sectionBlockIndex, Automata.CellRule.Action action) {
         if (action.scheduleTick() > 0) {
             wheelTimer.schedule(() -> new ScheduledChange(section, new BlockChange(sectionBlockIndex, List.of(action.immediate()))), action.scheduleTick());
+            section.activity.recordTimer(activityEpoch);
             return;
         }
         final int localX = sectionBlockIndexGetX(sectionBlockIndex);
@@ -442,8 +1250,7 @@ public final class LazyWorld implements Automata.World {
             for (int i = 0; i < orderedStates.size(); i++) {
                 section.setState(localX, localY, localZ, i, 0);
             }
-            if (palette != null) palette.set(localX, localY, localZ, 0);
-            blockChanges.add(encodeSectionBlockChange(localX, localY, localZ, 0));
+            if (palette != null) setBlockState(section, palette, localX, localY, localZ, 0);
         }
         // Set states
         final Int2LongMap updatedStates = action.updatedStates();
@@ -452,15 +1259,120 @@ public final class LazyWorld implements Automata.World {
                 final int stateIndex = changeEntry.getIntKey();
                 final long value = changeEntry.getLongValue();
                 if (stateIndex == 0) {
-                    if (palette != null) palette.set(localX, localY, localZ, (int) value);
-                    blockChanges.add(encodeSectionBlockChange(localX, localY, localZ, value));
+                    if (palette != null) setBlockState(section, palette, localX, localY, localZ, (int) value);
                 } else {
                     section.setState(localX, localY, localZ, stateIndex - 1, value);
                 }
             }
         }
+        section.activity.recordWrite(activityEpoch);
         // Register the point for the next tick
-        register(globalX, globalY, globalZ, section, action.wakePoints());
+        pendingWakes.add(new Wake(section, sectionBlockIndex, action.wakePoints()));
+    }
+
+    private void setBlockState(LSection section, Palette palette, int localX, int localY, int localZ, int value) {
+        if (relight) {
+            final int previous = palette.get(localX, localY, localZ);
+            if (lightRelevant(previous, value)) relightSections.add(section.index);
+        }
+        palette.set(localX, localY, localZ, value);
+        section.changedBlocks.set(sectionBlockIndex(localX, localY, localZ));
+        if (randomTicked(value)) addRandomTick(section, sectionBlockIndex(localX, localY, localZ));
+        changedSections.add(section);
+    }
+
+    private static boolean lightRelevant(int previousState, int newState) {
+        if (previousState == newState) return false;
+        final Block previous = Block.fromStateId(previousState);
+        final Block current = Block.fromStateId(newState);
+        if (previous == null || current == null) return true;
+        return previous.registry().lightEmission() != current.registry().lightEmission() ||
+                previous.registry().occludes() != current.registry().occludes();
+    }
+
+    private void flushChunks() {
+        for (LSection section : changedSections) sendSectionChanges(section);
+        changedSections.clear();
+        if (!relightSections.isEmpty()) relightChunks();
+        for (LongIterator iterator = dirtyChunks.iterator(); iterator.hasNext(); ) {
+            final long chunkIndex = iterator.nextLong();
+            final Chunk chunk = instance.getChunk(chunkIndexGetX(chunkIndex), chunkIndexGetZ(chunkIndex));
+            if (chunk != null) chunk.invalidate();
+        }
+        dirtyChunks.clear();
+    }
+
+    private void sendSectionChanges(LSection section) {
+        final BitSet changedBlocks = section.changedBlocks;
+        final int sectionX = sectionIndexGetX(section.index);
+        final int sectionY = sectionIndexGetY(section.index);
+        final int sectionZ = sectionIndexGetZ(section.index);
+        final Chunk chunk = instance.getChunk(sectionX, sectionZ);
+        if (chunk == null) {
+            changedBlocks.clear();
+            return;
+        }
+        // Only the final state of the tick is sent, no matter how many generations changed the block
+        final Palette palette = chunk.getSection(sectionY).blockPalette();
+        final long[] blocks = new long[changedBlocks.cardinality()];
+        int index = 0;
+        for (int blockIndex = changedBlocks.nextSetBit(0);
+             blockIndex >= 0;
+             blockIndex = changedBlocks.nextSetBit(blockIndex + 1)) {
+            final int localX = sectionBlockIndexGetX(blockIndex);
+            final int localY = sectionBlockIndexGetY(blockIndex);
+            final int localZ = sectionBlockIndexGetZ(blockIndex);
+            blocks[index++] = encodeSectionBlockChange(localX, localY, localZ, palette.get(localX, localY, localZ));
+        }
+        changedBlocks.clear();
+        dirtyChunks.add(chunkIndex(sectionX, sectionZ));
+        chunk.sendPacketToViewers(new MultiBlockChangePacket(sectionX, sectionY, sectionZ, blocks));
+        packetsSent++;
+    }
+
+    /**
+     * Resends every changed chunk as a whole instead of per-block packets.
+     */
+    private void resyncChunks() {
+        for (LSection section : changedSections) {
+            section.changedBlocks.clear();
+            dirtyChunks.add(chunkIndex(sectionIndexGetX(section.index), sectionIndexGetZ(section.index)));
+        }
+        changedSections.clear();
+        if (!relightSections.isEmpty()) relightChunks();
+        for (LongIterator iterator = dirtyChunks.iterator(); iterator.hasNext(); ) {
+            final long chunkIndex = iterator.nextLong();
+            final Chunk chunk = instance.getChunk(chunkIndexGetX(chunkIndex), chunkIndexGetZ(chunkIndex));
+            if (chunk == null) continue;
+            chunk.invalidate();
+            chunk.sendChunk();
+            packetsSent++;
+        }
+        dirtyChunks.clear();
+    }
+
+    private void relightChunks() {
+        // Light spreads across chunk borders, so the neighbors of each modified chunk have to be relit as well
+        Set<Chunk> chunks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (LongIterator iterator = relightSections.iterator(); iterator.hasNext(); ) {
+            final long sectionIndex = iterator.nextLong();
+            final int sectionX = sectionIndexGetX(sectionIndex);
+            final int sectionZ = sectionIndexGetZ(sectionIndex);
+            for (int x = -1; x <= 1; x++) {
+                for (int z = -1; z <= 1; z++) {
+                    final Chunk chunk = instance.getChunk(sectionX + x, sectionZ + z);
+                    if (chunk instanceof LightingChunk) chunks.add(chunk);
+                }
+            }
+        }
+        relightSections.clear();
+        if (chunks.isEmpty()) return;
+        for (Chunk chunk : LightingChunk.relight(instance, chunks)) {
+            if (chunk instanceof LightingChunk lightingChunk) {
+                lightingChunk.sendLighting();
+                packetsSent++;
+            }
+        }
     }
 
     boolean actionPredicate(LSection section, Palette palette, int x, int y, int z, Automata.CellRule.Action action) {
@@ -476,8 +1388,170 @@ public final class LazyWorld implements Automata.World {
         return true;
     }
 
+    /**
+     * Queues an external block change, applied at the start of the next tick.
+     * <p>
+     * Safe to call from any thread, player events are not necessarily dispatched on the ticking thread.
+     */
     @Override
     public void handlePlacement(int x, int y, int z, Map<Automata.CellRule.State, Long> properties) {
+        final Map<Automata.CellRule.State, Long> copy = Map.copyOf(properties);
+        placements.offer(() -> applyPlacement(x, y, z, copy));
+    }
+
+    /**
+     * Queues the placement of a whole region, applied at the start of the next tick.
+     * <p>
+     * Blocks and states are written section by section, then every placed cell and its neighbors are tracked in a
+     * single pass and the modified chunks are resent as a whole.
+     */
+    @Override
+    public void placeRegion(Automata.Region region, int @Nullable [] blocks, Map<Automata.CellRule.State, long[]> states) {
+        Automata.World.checkRegionArrays(region, blocks, states);
+        final int[] blocksCopy = blocks != null ? blocks.clone() : null;
+        Map<Automata.CellRule.State, long[]> statesCopy = new HashMap<>();
+        states.forEach((state, values) -> statesCopy.put(state, values.clone()));
+        placements.offer(() -> applyRegion(region, blocksCopy, statesCopy));
+    }
+
+    private void drainPlacements() {
+        Runnable placement;
+        while ((placement = placements.poll()) != null) placement.run();
+    }
+
+    private void applyRegion(Automata.Region region, int @Nullable [] blocks, Map<Automata.CellRule.State, long[]> states) {
+        // Values of each state slot, null slots are reset to 0
+        final long[][] slotValues = new long[orderedStates.size()][];
+        for (Automata.CellRule.State state : orderedStates) {
+            final int index = rulesMapping.get(state);
+            if (index != 0) slotValues[index - 1] = states.get(state);
+        }
+        final int minSectionX = globalToChunk(region.minX()), maxSectionX = globalToChunk(region.maxX());
+        final int minSectionY = globalToChunk(region.minY()), maxSectionY = globalToChunk(region.maxY());
+        final int minSectionZ = globalToChunk(region.minZ()), maxSectionZ = globalToChunk(region.maxZ());
+        for (int sectionX = minSectionX; sectionX <= maxSectionX; sectionX++) {
+            for (int sectionZ = minSectionZ; sectionZ <= maxSectionZ; sectionZ++) {
+                final Chunk chunk = instance.getChunk(sectionX, sectionZ);
+                for (int sectionY = Math.max(minSectionY, minY / 16); sectionY <= Math.min(maxSectionY, minY / 16 + sectionCount - 1); sectionY++) {
+                    final LSection section = loadedSections.computeIfAbsent(sectionIndex(sectionX, sectionY, sectionZ), LSection::new);
+                    final Palette palette = blocks != null && chunk != null ? chunk.getSection(sectionY).blockPalette() : null;
+                    final int fromX = Math.max(region.minX(), sectionX * 16), toX = Math.min(region.maxX(), sectionX * 16 + 15);
+                    final int fromY = Math.max(region.minY(), sectionY * 16), toY = Math.min(region.maxY(), sectionY * 16 + 15);
+                    final int fromZ = Math.max(region.minZ(), sectionZ * 16), toZ = Math.min(region.maxZ(), sectionZ * 16 + 15);
+                    for (int y = fromY; y <= toY; y++) {
+                        final int localY = y - sectionY * 16;
+                        for (int z = fromZ; z <= toZ; z++) {
+                            final int localZ = z - sectionZ * 16;
+                            for (int x = fromX; x <= toX; x++) {
+                                final int localX = x - sectionX * 16;
+                                final int index = region.index(x - region.minX(), y - region.minY(), z - region.minZ());
+                                for (int slot = 0; slot < slotValues.length; slot++) {
+                                    final long[] values = slotValues[slot];
+                                    section.setState(localX, localY, localZ, slot, values != null ? values[index] : 0);
+                                }
+                                if (palette != null) {
+                                    palette.set(localX, localY, localZ, blocks[index]);
+                                    if (randomTicked(blocks[index])) {
+                                        addRandomTick(section, sectionBlockIndex(localX, localY, localZ));
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    if (palette != null) {
+                        changedSections.add(section);
+                        if (relight) relightSections.add(section.index);
+                    }
+                }
+            }
+        }
+        trackDilated(region);
+        resyncChunks();
+    }
+
+    /**
+     * Copies the values of a state over a region, whole rows at once for 64-bit states.
+     */
+    @Override
+    public void readRegion(Automata.Region region, Automata.CellRule.State state, MemorySegment destination) {
+        Automata.World.checkReadDestination(region, destination);
+        final int index = query.stateIndex(state);
+        final int slot = index - 1;
+        final boolean unpacked = slot >= 0 && stateLayout.stateBitSizes[slot] == 64;
+        destination.asSlice(0, (long) region.volume() * Long.BYTES).fill((byte) 0);
+        final int minSectionY = Math.max(globalToChunk(region.minY()), minY / 16);
+        final int maxSectionY = Math.min(globalToChunk(region.maxY()), minY / 16 + sectionCount - 1);
+        for (int sectionX = globalToChunk(region.minX()); sectionX <= globalToChunk(region.maxX()); sectionX++) {
+            for (int sectionZ = globalToChunk(region.minZ()); sectionZ <= globalToChunk(region.maxZ()); sectionZ++) {
+                final Chunk chunk = instance.getChunk(sectionX, sectionZ);
+                for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                    final LSection section = slot >= 0 ? loadedSections.get(sectionIndex(sectionX, sectionY, sectionZ)) : null;
+                    final Palette palette = slot < 0 && chunk != null ? chunk.getSection(sectionY).blockPalette() : null;
+                    if (section == null && palette == null) continue;
+                    final int fromX = Math.max(region.minX(), sectionX * 16), toX = Math.min(region.maxX(), sectionX * 16 + 15);
+                    final int fromY = Math.max(region.minY(), sectionY * 16), toY = Math.min(region.maxY(), sectionY * 16 + 15);
+                    final int fromZ = Math.max(region.minZ(), sectionZ * 16), toZ = Math.min(region.maxZ(), sectionZ * 16 + 15);
+                    final int localFromX = fromX - sectionX * 16;
+                    final int length = toX - fromX + 1;
+                    for (int y = fromY; y <= toY; y++) {
+                        final int localY = y - sectionY * 16;
+                        for (int z = fromZ; z <= toZ; z++) {
+                            final int localZ = z - sectionZ * 16;
+                            final long target = (long) region.index(fromX - region.minX(), y - region.minY(), z - region.minZ()) * Long.BYTES;
+                            final int blockIndex = sectionBlockIndex(localFromX, localY, localZ);
+                            if (palette != null) {
+                                for (int i = 0; i < length; i++) {
+                                    destination.set(ValueLayout.JAVA_LONG_UNALIGNED, target + (long) i * Long.BYTES,
+                                            palette.get(localFromX + i, localY, localZ));
+                                }
+                            } else if (unpacked) {
+                                MemorySegment.copy(section.stateSegments[slot], ValueLayout.JAVA_LONG, (long) blockIndex * Long.BYTES,
+                                        destination, ValueLayout.JAVA_LONG_UNALIGNED, target, length);
+                            } else {
+                                for (int i = 0; i < length; i++) {
+                                    destination.set(ValueLayout.JAVA_LONG_UNALIGNED, target + (long) i * Long.BYTES,
+                                            section.getStateByBlockIndex(blockIndex + i, slot));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tracks every cell of a region and its direct neighbors, setting whole rows of bits at once.
+     */
+    private void trackDilated(Automata.Region region) {
+        final int minX = region.minX() - 1, maxX = region.maxX() + 1;
+        final int minY = region.minY() - 1, maxY = region.maxY() + 1;
+        final int minZ = region.minZ() - 1, maxZ = region.maxZ() + 1;
+        for (int sectionX = globalToChunk(minX); sectionX <= globalToChunk(maxX); sectionX++) {
+            for (int sectionY = Math.max(globalToChunk(minY), this.minY / 16); sectionY <= Math.min(globalToChunk(maxY), this.minY / 16 + sectionCount - 1); sectionY++) {
+                for (int sectionZ = globalToChunk(minZ); sectionZ <= globalToChunk(maxZ); sectionZ++) {
+                    final LSection section = loadedSections.computeIfAbsent(sectionIndex(sectionX, sectionY, sectionZ), LSection::new);
+                    final int fromX = Math.max(minX, sectionX * 16) - sectionX * 16;
+                    final int toX = Math.min(maxX, sectionX * 16 + 15) - sectionX * 16;
+                    final int fromY = Math.max(minY, sectionY * 16) - sectionY * 16;
+                    final int toY = Math.min(maxY, sectionY * 16 + 15) - sectionY * 16;
+                    final int fromZ = Math.max(minZ, sectionZ * 16) - sectionZ * 16;
+                    final int toZ = Math.min(maxZ, sectionZ * 16 + 15) - sectionZ * 16;
+                    final int before = section.trackedBlocks.cardinality();
+                    for (int y = fromY; y <= toY; y++) {
+                        for (int z = fromZ; z <= toZ; z++) {
+                            section.trackedBlocks.set(sectionBlockIndex(fromX, y, z), sectionBlockIndex(toX, y, z) + 1);
+                        }
+                    }
+                    trackedBlockCount += section.trackedBlocks.cardinality() - before;
+                    section.activity.recordWakes(activityEpoch, (toX - fromX + 1) * (toY - fromY + 1) * (toZ - fromZ + 1));
+                    trackedSections.add(section);
+                }
+            }
+        }
+    }
+
+    private void applyPlacement(int x, int y, int z, Map<Automata.CellRule.State, Long> properties) {
         LSection section = sectionGlobalCompute(x, y, z);
         assert section != null;
         final int localX = globalToSectionRelative(x);
@@ -489,8 +1563,10 @@ public final class LazyWorld implements Automata.World {
             final long value = properties.getOrDefault(state, 0L);
             section.setState(localX, localY, localZ, index - 1, value);
         }
+        // The block itself is placed by the instance
+        if (randomTicked(globalBlockState(x, y, z))) addRandomTick(section, sectionBlockIndex(localX, localY, localZ));
         trackedSections.add(section);
-        register(x, y, z, section, Neighbors.MOORE_3D_SELF);
+        register(x, y, z, section, rules.wakePoints());
     }
 
     @Override
@@ -500,17 +1576,19 @@ public final class LazyWorld implements Automata.World {
         final int globalX = chunk.getChunkX() * 16;
         final int globalZ = chunk.getChunkZ() * 16;
         final int startSectionY = minY / 16;
+        final List<Point> wakePoints = rules.wakePoints();
         for (int i = startSectionY; i < sectionCount + startSectionY; i++) {
             final int globalY = i * 16;
             final Section section = chunk.getSection(i);
             LSection startSection = sectionGlobalCompute(globalX, globalY, globalZ);
             trackedSections.add(startSection);
             section.blockPalette().getAllPresent((x, y, z, value) -> {
+                if (randomTicked(value)) addRandomTick(startSection, sectionBlockIndex(x, y, z));
                 if (value > 0 && !rules.tracked(Block.fromStateId(value))) return;
                 final int blockX = globalX + x;
                 final int blockY = globalY + y;
                 final int blockZ = globalZ + z;
-                register(blockX, blockY, blockZ, startSection, Neighbors.MOORE_3D_SELF);
+                register(blockX, blockY, blockZ, startSection, wakePoints);
             });
         }
     }
@@ -531,26 +1609,35 @@ public final class LazyWorld implements Automata.World {
             trackedSections.add(startSection);
         }
         LSection sectionCache = null;
-        final boolean boundary = globalSectionBoundary(x, y, z);
         for (Point point : wakePoints) {
             final int nX = x + point.blockX();
             final int nY = y + point.blockY();
             final int nZ = z + point.blockZ();
             LSection section = startSection;
-            if (boundary) section = sectionCache = sectionCache(startSection, sectionCache, nX, nY, nZ);
+            // Wake points of wide neighborhoods may leave the section from any cell
+            if ((nX >> 4) != (x >> 4) || (nY >> 4) != (y >> 4) || (nZ >> 4) != (z >> 4)) {
+                section = sectionCache = sectionCache(startSection, sectionCache, nX, nY, nZ);
+            }
             final int localX = globalToSectionRelative(nX);
             final int localY = globalToSectionRelative(nY);
             final int localZ = globalToSectionRelative(nZ);
-            final int blockIndex = sectionBlockIndex(localX, localY, localZ);
-            section.trackedBlocks.set(blockIndex);
+            section.track(sectionBlockIndex(localX, localY, localZ));
         }
+        // Counted once, in the section of the waking cell
+        startSection.activity.recordWakes(activityEpoch, wakePoints.size());
     }
 
     @Override
     public void handleChunkUnload(int chunkX, int chunkZ) {
+        limitedRegions.remove(chunkIndex(chunkX, chunkZ));
+        regionTrackedBlocks.remove(chunkIndex(chunkX, chunkZ));
+        frozenSections.remove(chunkIndex(chunkX, chunkZ));
         for (int sectionY = 0; sectionY < sectionCount; sectionY++) {
             final long sectionIndex = sectionIndex(chunkX, sectionY, chunkZ);
-            this.loadedSections.remove(sectionIndex);
+            final LSection section = this.loadedSections.remove(sectionIndex);
+            if (section == null) continue;
+            randomTickSections.remove(section);
+            section.untrack();
         }
     }
 
@@ -571,7 +1658,19 @@ public final class LazyWorld implements Automata.World {
 
     @Override
     public Automata.CellRule rules() {
-        return rules;
+        return baseRules;
+    }
+
+    @Override
+    public void setProfiler(RuleProfiler profiler) {
+        this.profiler = profiler;
+        this.rules = profiler != null ? baseRules.profiled(profiler, "rules") : baseRules;
+        this.rules.init(rulesMapping);
+    }
+
+    @Override
+    public RuleProfiler profiler() {
+        return profiler;
     }
 
     @Override
@@ -590,7 +1689,10 @@ public final class LazyWorld implements Automata.World {
         for (LSection section : new ArrayList<>(loadedSections.values())) {
             section.stateSegments = migrateSection(section, oldToNewIndex, newStateLayout);
             section.trackedBlocks.clear();
+            if (section.randomTicks != null) section.randomTicks.clear();
         }
+        trackedBlockCount = 0;
+        randomTickSections.clear();
 
         // Initialize new rules
         initRules(newRules, orderedStates);
@@ -619,6 +1721,8 @@ public final class LazyWorld implements Automata.World {
             }
         }
         trackedSections.clear();
+        resuming = false;
+        frozenSections.clear();
         for (LSection section : loadedSections.values()) {
             final int sectionX = sectionIndexGetX(section.index);
             final int sectionY = sectionIndexGetY(section.index);
@@ -627,12 +1731,13 @@ public final class LazyWorld implements Automata.World {
             if (palette == null) continue;
             if (palette.count() == 0 && emptySegments(section.stateSegments)) continue;
             palette.getAll((x, y, z, value) -> {
+                if (randomTicked(value)) addRandomTick(section, sectionBlockIndex(x, y, z));
                 final boolean tracked = value > 0 && newRules.tracked(Block.fromStateId(value));
                 if (tracked || section.anyState(x, y, z)) {
                     final int globalX = sectionX * 16 + x;
                     final int globalY = sectionY * 16 + y;
                     final int globalZ = sectionZ * 16 + z;
-                    register(globalX, globalY, globalZ, section, Neighbors.MOORE_3D_SELF);
+                    register(globalX, globalY, globalZ, section, newRules.wakePoints());
                 }
             });
             if (!section.trackedBlocks.isEmpty()) {
@@ -0,0 +1,88 @@
+package net.goldenstack.minestom_ca.backends.lazy;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The cells of a section receiving random ticks, sampled with a counter-based generator.
+ * <p>
+ * Cells are only removed once sampled and found to no longer be random-ticked, so block changes never search the set.
+ */
+public final class RandomTickSet {
+    private final BitSet members = new BitSet();
+    private int[] cells = new int[16];
+    private int size = 0;
+
+    public boolean add(int cell) {
+        if (members.get(cell)) return false;
+        members.set(cell);
+        if (size == cells.length) cells = Arrays.copyOf(cells, size * 2);
+        cells[size++] = cell;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Picks a slot uniformly, the set must not be empty.
+     *
+     * @param random a value of {@link #random(long, long, long, int)}
+     */
+    public int slot(long random) {
+        return (int) (((random >>> 33) * size) >>> 31);
+    }
+
+    public int cell(int slot) {
+        return cells[slot];
+    }
+
+    public void removeSlot(int slot) {
+        members.clear(cells[slot]);
+        cells[slot] = cells[--size];
+    }
+
+    public void clear() {
+        members.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets the random value of a sample, only depending on its inputs so that ticks are reproducible whatever the
+     * evaluation order.
+     *
+     * @param seed    the seed of the world
+     * @param section the index of the section
+     * @param tick    the generation being simulated
+     * @param sample  the number of the sample within the section and generation
+     */
+    public static long random(long seed, long section, long tick, int sample) {
+        return mix(mix(mix(seed ^ section) + tick) + sample);
+    }
+
+    /**
+     * Gets the random value of a cell, for the randomness of the rules themselves rather than the sampling.
+     *
+     * @param seed    the seed of the world
+     * @param section the index of the section of the cell
+     * @param tick    the generation being simulated
+     * @param cell    the index of the cell within its section
+     */
+    public static long cellRandom(long seed, long section, long tick, int cell) {
+        // Negative samples, never drawn by the random ticks
+        return random(seed, section, tick, ~cell);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,62 @@
+package net.goldenstack.minestom_ca.backends.lazy;
+
+import net.minestom.server.event.trait.CancellableEvent;
+import net.minestom.server.event.trait.InstanceEvent;
+import net.minestom.server.instance.Instance;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Called when a region of a {@link LazyWorld} grows faster than its {@link LazyWorld.GrowthPolicy} allows.
+ * <p>
+ * Cancelling the event lets the region keep ticking normally, otherwise it stays limited until
+ * {@link LazyWorld#resumeRegion(int, int)} is called.
+ */
+public final class RegionLimitEvent implements InstanceEvent, CancellableEvent {
+    private final Instance instance;
+    private final int chunkX, chunkZ;
+    private final long growth;
+    private final LazyWorld.GrowthPolicy.Response response;
+    private boolean cancelled;
+
+    public RegionLimitEvent(Instance instance, int chunkX, int chunkZ, long growth, LazyWorld.GrowthPolicy.Response response) {
+        this.instance = instance;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.growth = growth;
+        this.response = response;
+    }
+
+    @Override
+    public @NotNull Instance getInstance() {
+        return instance;
+    }
+
+    public int chunkX() {
+        return chunkX;
+    }
+
+    public int chunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * Gets the number of tracked blocks the region gained over the last check interval.
+     */
+    public long growth() {
+        return growth;
+    }
+
+    public LazyWorld.GrowthPolicy.Response response() {
+        return response;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+}
@@ -0,0 +1,400 @@
+package net.goldenstack.minestom_ca.lang;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Index-resolved form of the rules of a {@link Program}, evaluated without any name or map lookup.
+ * <p>
+ * Built from the {@link Rule} tree once the state mapping of the world is known, positions are relative to the
+ * evaluated cell.
+ */
+final class Ir {
+    private Ir() {
+    }
+
+    /**
+     * @param delay when to apply the results, null to apply them immediately
+     * @param wake  the cells to wake once the results are applied
+     */
+    record CompiledRule(Condition condition, Result[] results, Rule.@Nullable Delay delay, List<Point> wake) {
+        void apply(Automata.Query query, Int2LongMap block) {
+            for (Result result : results) result.apply(query, block);
+        }
+
+        /**
+         * Schedules the results of a delayed rule.
+         */
+        Automata.CellRule.Action schedule(Automata.Query query) {
+            final Rule.Delay delay = Objects.requireNonNull(this.delay);
+            Int2LongMap updated = new Int2LongOpenHashMap();
+            apply(query, updated);
+            final int ticks = delay.random() ?
+                    1 + (int) Long.remainderUnsigned(query.random(), delay.ticks()) : delay.ticks();
+            if (!delay.keep()) return Automata.CellRule.Action.Schedule(ticks, updated).withWakePoints(wake);
+            Int2LongMap expected = new Int2LongOpenHashMap(updated.size());
+            for (int index : updated.keySet()) expected.put(index, query.state(index));
+            return Automata.CellRule.Action.ConditionalSchedule(ticks, expected, updated).withWakePoints(wake);
+        }
+    }
+
+    /**
+     * Merges the wake sets of the rules applied to a cell.
+     */
+    static List<Point> mergeWake(@Nullable List<Point> wake, List<Point> other) {
+        if (wake == null || wake == other || wake.equals(other)) return other;
+        Set<Point> merged = new LinkedHashSet<>(wake);
+        merged.addAll(other);
+        return List.copyOf(merged);
+    }
+
+    sealed interface Condition extends Automata.Query.CellPredicate {
+        boolean test(Automata.Query query, int x, int y, int z);
+    }
+
+    record Constant(boolean value) implements Condition {
+        static final Constant TRUE = new Constant(true);
+        static final Constant FALSE = new Constant(false);
+
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            return value;
+        }
+    }
+
+    record And(Condition[] conditions) implements Condition {
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            for (Condition condition : conditions) {
+                if (!condition.test(query, x, y, z)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof And and && Arrays.equals(conditions, and.conditions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(conditions);
+        }
+    }
+
+    record Not(Condition condition) implements Condition {
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            return !condition.test(query, x, y, z);
+        }
+    }
+
+    record Equal(Expression first, Expression second) implements Condition {
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            return first.evaluate(query, x, y, z) == second.evaluate(query, x, y, z);
+        }
+    }
+
+    /**
+     * Checks that an expression is between two bounds, inclusive.
+     */
+    record Range(Expression expression, long min, long max) implements Condition {
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            final long value = expression.evaluate(query, x, y, z);
+            return value >= min && value <= max;
+        }
+    }
+
+    /**
+     * Checks that an expression is one of a set of values, a single bit test once the value is read.
+     */
+    record Matches(Expression expression, BitSet values) implements Condition {
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            final long value = expression.evaluate(query, x, y, z);
+            return value >= 0 && value < Integer.MAX_VALUE && values.get((int) value);
+        }
+    }
+
+    /**
+     * Checks that the number of cells matching a condition is between two bounds, inclusive, stopping as soon as the
+     * result is known.
+     */
+    record CountRange(int[] offsets, Condition condition, long min, long max) implements Condition {
+        @Override
+        public boolean test(Automata.Query query, int x, int y, int z) {
+            int count = 0;
+            int remaining = offsets.length / 3;
+            for (int i = 0; i < offsets.length; i += 3) {
+                remaining--;
+                if (condition.test(query, x + offsets[i], y + offsets[i + 1], z + offsets[i + 2]) && ++count > max) {
+                    return false;
+                }
+                if (count >= min && count + remaining <= max) return true;
+                if (count + remaining < min) return false;
+            }
+            return count >= min && count <= max;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CountRange other && Arrays.equals(offsets, other.offsets) &&
+                    condition.equals(other.condition) && min == other.min && max == other.max;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(offsets), condition, min, max);
+        }
+    }
+
+    sealed interface Expression {
+        long evaluate(Automata.Query query, int x, int y, int z);
+    }
+
+    record Literal(long value) implements Expression {
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            return value;
+        }
+    }
+
+    /**
+     * A state of the cell at an offset, index 0 being the block state.
+     */
+    record State(int offsetX, int offsetY, int offsetZ, int index) implements Expression {
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            return query.stateAt(x + offsetX, y + offsetY, z + offsetZ, index);
+        }
+    }
+
+    /**
+     * A state of the evaluated cell, only valid when evaluated at the cell itself.
+     */
+    record SelfState(int index) implements Expression {
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            return query.state(index);
+        }
+    }
+
+    /**
+     * Counts the cells matching a condition, offsets are packed as {@code x, y, z} triples.
+     *
+     * @param boxes the offsets covered by boxes, only set for wide neighborhoods so that the query can count them
+     *              from cached sums
+     */
+    record NeighborsCount(int[] offsets, Condition condition, @Nullable List<Neighbors.Box> boxes) implements Expression {
+        /**
+         * The number of offsets from which boxes are used, larger than a 3x3x3 neighborhood.
+         */
+        static final int BOX_THRESHOLD = 27;
+
+        NeighborsCount(int[] offsets, Condition condition) {
+            this(offsets, condition, boxes(offsets));
+        }
+
+        private static @Nullable List<Neighbors.Box> boxes(int[] offsets) {
+            final int count = offsets.length / 3;
+            if (count <= BOX_THRESHOLD) return null;
+            List<Point> points = new ArrayList<>(count);
+            for (int i = 0; i < offsets.length; i += 3) points.add(new Vec(offsets[i], offsets[i + 1], offsets[i + 2]));
+            final List<Neighbors.Box> boxes = Neighbors.boxes(points);
+            // Duplicate offsets are counted several times, and a box sum reads 8 corners
+            if (Set.copyOf(points).size() != count || boxes.size() * 8 >= count) return null;
+            return boxes;
+        }
+
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            if (boxes != null && (x | y | z) == 0) return query.countBoxes(boxes, condition);
+            int count = 0;
+            for (int i = 0; i < offsets.length; i += 3) {
+                if (condition.test(query, x + offsets[i], y + offsets[i + 1], z + offsets[i + 2])) count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NeighborsCount other && Arrays.equals(offsets, other.offsets) &&
+                    condition.equals(other.condition);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(offsets) + condition.hashCode();
+        }
+    }
+
+    /**
+     * A count read by several conditions of the evaluated cell, computed once per cell.
+     */
+    record SharedCount(int slot, NeighborsCount count, CountCache cache) implements Expression {
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            return cache.get(slot, count, query);
+        }
+    }
+
+    /**
+     * Values of the shared counts of the cell being evaluated, invalidated by {@link #reset()} before each cell.
+     */
+    static final class CountCache {
+        private final long[] values;
+        private final int[] stamps;
+        private int stamp = 1;
+
+        CountCache(int size) {
+            this.values = new long[size];
+            this.stamps = new int[size];
+        }
+
+        void reset() {
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        long get(int slot, NeighborsCount count, Automata.Query query) {
+            if (stamps[slot] == stamp) return values[slot];
+            final long value = count.evaluate(query, 0, 0, 0);
+            values[slot] = value;
+            stamps[slot] = stamp;
+            return value;
+        }
+    }
+
+    record Compare(Expression first, Expression second) implements Expression {
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            return Long.signum(first.evaluate(query, x, y, z) - second.evaluate(query, x, y, z));
+        }
+    }
+
+    record Operation(Expression first, Expression second, Rule.Expression.Operation.Type type) implements Expression {
+        @Override
+        public long evaluate(Automata.Query query, int x, int y, int z) {
+            final long first = this.first.evaluate(query, x, y, z);
+            final long second = this.second.evaluate(query, x, y, z);
+            return switch (type) {
+                case ADD -> first + second;
+                case SUBTRACT -> first - second;
+                case MULTIPLY -> first * second;
+                case DIVIDE -> first / second;
+                case MODULO -> first % second;
+            };
+        }
+    }
+
+    sealed interface Result {
+        void apply(Automata.Query query, Int2LongMap block);
+    }
+
+    record SetState(int index, Expression expression) implements Result {
+        @Override
+        public void apply(Automata.Query query, Int2LongMap block) {
+            block.put(index, expression.evaluate(query, 0, 0, 0));
+        }
+    }
+
+    record BlockCopy(int x, int y, int z) implements Result {
+        @Override
+        public void apply(Automata.Query query, Int2LongMap block) {
+            final long[] queryIndexes = query.queryIndexes(x, y, z);
+            for (int i = 0; i < queryIndexes.length; i++) block.put(i, queryIndexes[i]);
+        }
+    }
+
+    record TriggerEvent(String event, @Nullable Expression expression) implements Result {
+        @Override
+        public void apply(Automata.Query query, Int2LongMap block) {
+            if (expression != null) {
+                System.out.println("Event: " + event + "=" + expression.evaluate(query, 0, 0, 0));
+            } else {
+                System.out.println("Event: " + event);
+            }
+        }
+    }
+
+    /**
+     * Lowers rules to their index-resolved form.
+     *
+     * @param index       resolves a state name to its query index
+     * @param defaultWake the cells to wake for rules without an explicit wake set
+     */
+    static CompiledRule[] lower(List<Rule> rules, ToIntFunction<String> index, List<Point> defaultWake) {
+        CompiledRule[] compiled = new CompiledRule[rules.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            final Rule rule = rules.get(i);
+            Result[] results = new Result[rule.results().size()];
+            for (int j = 0; j < results.length; j++) results[j] = lower(rule.results().get(j), index);
+            compiled[i] = new CompiledRule(lower(rule.condition(), index), results, rule.delay(),
+                    rule.wake() != null ? rule.wake() : defaultWake);
+        }
+        return compiled;
+    }
+
+    private static Condition lower(Rule.Condition condition, ToIntFunction<String> index) {
+        return switch (condition) {
+            case Rule.Condition.And and -> {
+                Condition[] conditions = new Condition[and.conditions().size()];
+                for (int i = 0; i < conditions.length; i++) conditions[i] = lower(and.conditions().get(i), index);
+                yield new And(conditions);
+            }
+            case Rule.Condition.Not not -> new Not(lower(not.condition(), index));
+            case Rule.Condition.Equal equal -> new Equal(lower(equal.first(), index), lower(equal.second(), index));
+            case Rule.Condition.Pattern pattern -> new Matches(new State(0, 0, 0, 0), pattern.states());
+        };
+    }
+
+    private static Expression lower(Rule.Expression expression, ToIntFunction<String> index) {
+        return switch (expression) {
+            case Rule.Expression.Literal literal -> new Literal(literal.value());
+            case Rule.Expression.State state -> new State(0, 0, 0, index.applyAsInt(state.state()));
+            case Rule.Expression.NeighborState neighbor ->
+                    new State(neighbor.x(), neighbor.y(), neighbor.z(), index.applyAsInt(neighbor.state()));
+            case Rule.Expression.NeighborsCount neighborsCount -> {
+                final List<Point> points = neighborsCount.offsets();
+                int[] offsets = new int[points.size() * 3];
+                for (int i = 0; i < points.size(); i++) {
+                    final Point point = points.get(i);
+                    offsets[i * 3] = point.blockX();
+                    offsets[i * 3 + 1] = point.blockY();
+                    offsets[i * 3 + 2] = point.blockZ();
+                }
+                yield new NeighborsCount(offsets, lower(neighborsCount.condition(), index));
+            }
+            case Rule.Expression.Compare compare -> new Compare(lower(compare.first(), index), lower(compare.second(), index));
+            case Rule.Expression.Operation operation ->
+                    new Operation(lower(operation.first(), index), lower(operation.second(), index), operation.type());
+        };
+    }
+
+    private static Result lower(Rule.Result result, ToIntFunction<String> index) {
+        return switch (result) {
+            case Rule.Result.SetState set -> new SetState(index.applyAsInt(set.state()), lower(set.expression(), index));
+            case Rule.Result.BlockCopy blockCopy -> new BlockCopy(blockCopy.x(), blockCopy.y(), blockCopy.z());
+            case Rule.Result.TriggerEvent event ->
+                    new TriggerEvent(event.event(), event.expression() != null ? lower(event.expression(), index) : null);
+        };
+    }
+}
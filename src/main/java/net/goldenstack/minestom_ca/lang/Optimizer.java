@@ -0,0 +1,255 @@
+package net.goldenstack.minestom_ca.lang;
+
+import java.util.*;
+
+/**
+ * Simplifies compiled rules before evaluation.
+ * <p>
+ * Constants are folded, comparisons against literals become range checks, neighbor counts stop as soon as their
+ * result is known, conjunctions test their cheapest conditions first, and counts of the cell read by several
+ * conditions are computed once per cell.
+ */
+final class Optimizer {
+    private final Map<Ir.NeighborsCount, Integer> sharedSlots = new HashMap<>();
+    private final Ir.CountCache cache;
+
+    private Optimizer(Ir.CompiledRule[] rules) {
+        // Counts evaluated at the cell itself by more than one condition
+        Map<Ir.NeighborsCount, Integer> occurrences = new HashMap<>();
+        for (Ir.CompiledRule rule : rules) countOccurrences(rule.condition(), occurrences);
+        for (Ir.Result result : resultsOf(rules)) {
+            if (result instanceof Ir.SetState(int _, Ir.Expression expression)) countOccurrences(expression, occurrences);
+        }
+        occurrences.forEach((count, occurrence) -> {
+            if (occurrence > 1) sharedSlots.put(count, sharedSlots.size());
+        });
+        this.cache = new Ir.CountCache(sharedSlots.size());
+    }
+
+    /**
+     * Optimizes rules, keeping their number and order.
+     */
+    static Optimized optimize(Ir.CompiledRule[] rules) {
+        final Optimizer optimizer = new Optimizer(rules);
+        Ir.CompiledRule[] optimized = new Ir.CompiledRule[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            final Ir.CompiledRule rule = rules[i];
+            Ir.Result[] results = new Ir.Result[rule.results().length];
+            for (int j = 0; j < results.length; j++) results[j] = optimizer.result(rule.results()[j]);
+            optimized[i] = new Ir.CompiledRule(optimizer.condition(rule.condition(), true), results, rule.delay(), rule.wake());
+        }
+        return new Optimized(optimized, optimizer.sharedSlots.isEmpty() ? null : optimizer.cache);
+    }
+
+    /**
+     * @param cache the cache to reset before evaluating each cell, or null if no count is shared
+     */
+    record Optimized(Ir.CompiledRule[] rules, Ir.CountCache cache) {
+    }
+
+    private static List<Ir.Result> resultsOf(Ir.CompiledRule[] rules) {
+        List<Ir.Result> results = new ArrayList<>();
+        for (Ir.CompiledRule rule : rules) results.addAll(List.of(rule.results()));
+        return results;
+    }
+
+    private static void countOccurrences(Ir.Condition condition, Map<Ir.NeighborsCount, Integer> occurrences) {
+        switch (condition) {
+            case Ir.And and -> {
+                for (Ir.Condition c : and.conditions()) countOccurrences(c, occurrences);
+            }
+            case Ir.Not not -> countOccurrences(not.condition(), occurrences);
+            case Ir.Equal equal -> {
+                countOccurrences(equal.first(), occurrences);
+                countOccurrences(equal.second(), occurrences);
+            }
+            case Ir.Range range -> countOccurrences(range.expression(), occurrences);
+            case Ir.Matches matches -> countOccurrences(matches.expression(), occurrences);
+            case Ir.Constant _, Ir.CountRange _ -> {
+            }
+        }
+    }
+
+    private static void countOccurrences(Ir.Expression expression, Map<Ir.NeighborsCount, Integer> occurrences) {
+        switch (expression) {
+            // Conditions inside a count are evaluated at the neighbors, they are not shared
+            case Ir.NeighborsCount count -> occurrences.merge(count, 1, Integer::sum);
+            case Ir.Compare compare -> {
+                countOccurrences(compare.first(), occurrences);
+                countOccurrences(compare.second(), occurrences);
+            }
+            case Ir.Operation operation -> {
+                countOccurrences(operation.first(), occurrences);
+                countOccurrences(operation.second(), occurrences);
+            }
+            case Ir.Literal _, Ir.State _, Ir.SelfState _, Ir.SharedCount _ -> {
+            }
+        }
+    }
+
+    /**
+     * @param self whether the condition is evaluated at the cell itself rather than at a neighbor
+     */
+    private Ir.Condition condition(Ir.Condition condition, boolean self) {
+        return switch (condition) {
+            case Ir.Constant constant -> constant;
+            case Ir.And and -> and(and, self);
+            case Ir.Not not -> switch (condition(not.condition(), self)) {
+                case Ir.Constant constant -> constant.value() ? Ir.Constant.FALSE : Ir.Constant.TRUE;
+                case Ir.Not inner -> inner.condition();
+                case Ir.Range(Ir.Expression expression, long min, long max) when min == Long.MIN_VALUE ->
+                        max == Long.MAX_VALUE ? Ir.Constant.FALSE : range(expression, max + 1, Long.MAX_VALUE, self);
+                case Ir.Range(Ir.Expression expression, long min, long max) when max == Long.MAX_VALUE ->
+                        range(expression, Long.MIN_VALUE, min - 1, self);
+                case Ir.Condition inner -> new Ir.Not(inner);
+            };
+            case Ir.Equal equal -> equal(expression(equal.first(), self), expression(equal.second(), self), self);
+            case Ir.Range range -> range(expression(range.expression(), self), range.min(), range.max(), self);
+            case Ir.CountRange countRange -> countRange;
+            case Ir.Matches matches -> matches(expression(matches.expression(), self), matches.values());
+        };
+    }
+
+    private static Ir.Condition matches(Ir.Expression expression, BitSet values) {
+        if (expression instanceof Ir.Literal(long value)) {
+            return new Ir.Matches(expression, values).test(null, 0, 0, 0) ? Ir.Constant.TRUE : Ir.Constant.FALSE;
+        }
+        if (values.isEmpty()) return Ir.Constant.FALSE;
+        final int first = values.nextSetBit(0);
+        final int end = values.nextClearBit(first);
+        // A single run of values is a plain range check
+        if (values.nextSetBit(end) < 0) return new Ir.Range(expression, first, end - 1);
+        return new Ir.Matches(expression, values);
+    }
+
+    private Ir.Condition and(Ir.And and, boolean self) {
+        List<Ir.Condition> conditions = new ArrayList<>();
+        for (Ir.Condition c : and.conditions()) {
+            final Ir.Condition optimized = condition(c, self);
+            switch (optimized) {
+                case Ir.Constant constant when !constant.value() -> {
+                    return Ir.Constant.FALSE;
+                }
+                case Ir.Constant _ -> {
+                }
+                case Ir.And inner -> conditions.addAll(List.of(inner.conditions()));
+                default -> conditions.add(optimized);
+            }
+        }
+        if (conditions.isEmpty()) return Ir.Constant.TRUE;
+        if (conditions.size() == 1) return conditions.getFirst();
+        // Cheap self checks first, neighbor scans last
+        conditions.sort(Comparator.comparingInt(Optimizer::cost));
+        return new Ir.And(conditions.toArray(Ir.Condition[]::new));
+    }
+
+    private Ir.Condition equal(Ir.Expression first, Ir.Expression second, boolean self) {
+        if (first instanceof Ir.Literal(long a) && second instanceof Ir.Literal(long b)) {
+            return a == b ? Ir.Constant.TRUE : Ir.Constant.FALSE;
+        }
+        if (first instanceof Ir.Literal(long value)) return range(second, value, value, self);
+        if (second instanceof Ir.Literal(long value)) {
+            // The parser encodes [>n] and [<n] as Compare(count, n) equal to 1 or -1
+            if (first instanceof Ir.Compare(Ir.Expression compared, Ir.Literal(long bound))) {
+                if (value == 1) return bound == Long.MAX_VALUE ? Ir.Constant.FALSE : range(compared, bound + 1, Long.MAX_VALUE, self);
+                if (value == 0) return range(compared, bound, bound, self);
+                if (value == -1) return bound == Long.MIN_VALUE ? Ir.Constant.FALSE : range(compared, Long.MIN_VALUE, bound - 1, self);
+                return Ir.Constant.FALSE;
+            }
+            return range(first, value, value, self);
+        }
+        return new Ir.Equal(first, second);
+    }
+
+    private Ir.Condition range(Ir.Expression expression, long min, long max, boolean self) {
+        if (min > max) return Ir.Constant.FALSE;
+        if (expression instanceof Ir.Literal(long value)) {
+            return value >= min && value <= max ? Ir.Constant.TRUE : Ir.Constant.FALSE;
+        }
+        if (expression instanceof Ir.NeighborsCount(int[] offsets, Ir.Condition condition, var boxes)) {
+            final int size = offsets.length / 3;
+            if (min <= 0 && max >= size) return Ir.Constant.TRUE;
+            if (min > size || max < 0) return Ir.Constant.FALSE;
+            // Wide counts are read from box sums, cheaper than stopping early
+            if (boxes != null) return new Ir.Range(expression, min, max);
+            return new Ir.CountRange(offsets, condition, min, max);
+        }
+        return new Ir.Range(expression, min, max);
+    }
+
+    private Ir.Expression expression(Ir.Expression expression, boolean self) {
+        return switch (expression) {
+            case Ir.Literal literal -> literal;
+            case Ir.State(int x, int y, int z, int index) when self && x == 0 && y == 0 && z == 0 -> new Ir.SelfState(index);
+            case Ir.State state -> state;
+            case Ir.SelfState selfState -> selfState;
+            case Ir.SharedCount sharedCount -> sharedCount;
+            case Ir.NeighborsCount count -> {
+                final Integer slot = self ? sharedSlots.get(count) : null;
+                final Ir.NeighborsCount optimized = new Ir.NeighborsCount(count.offsets(),
+                        condition(count.condition(), false), count.boxes());
+                yield slot != null ? new Ir.SharedCount(slot, optimized, cache) : optimized;
+            }
+            case Ir.Compare compare -> {
+                final Ir.Expression first = expression(compare.first(), self);
+                final Ir.Expression second = expression(compare.second(), self);
+                if (first instanceof Ir.Literal(long a) && second instanceof Ir.Literal(long b)) {
+                    yield new Ir.Literal(Long.signum(a - b));
+                }
+                yield new Ir.Compare(first, second);
+            }
+            case Ir.Operation operation -> {
+                final Ir.Expression first = expression(operation.first(), self);
+                final Ir.Expression second = expression(operation.second(), self);
+                if (first instanceof Ir.Literal && second instanceof Ir.Literal &&
+                        !(second instanceof Ir.Literal(long divisor) && divisor == 0)) {
+                    // Evaluating constants does not read the query
+                    yield new Ir.Literal(new Ir.Operation(first, second, operation.type()).evaluate(null, 0, 0, 0));
+                }
+                yield new Ir.Operation(first, second, operation.type());
+            }
+        };
+    }
+
+    private Ir.Result result(Ir.Result result) {
+        return switch (result) {
+            case Ir.SetState set -> new Ir.SetState(set.index(), expression(set.expression(), true));
+            case Ir.TriggerEvent event ->
+                    new Ir.TriggerEvent(event.event(), event.expression() != null ? expression(event.expression(), true) : null);
+            case Ir.BlockCopy blockCopy -> blockCopy;
+        };
+    }
+
+    /**
+     * Estimates the number of cell reads needed to evaluate a condition.
+     */
+    private static int cost(Ir.Condition condition) {
+        return switch (condition) {
+            case Ir.Constant _ -> 0;
+            case Ir.And and -> {
+                int cost = 0;
+                for (Ir.Condition c : and.conditions()) cost += cost(c);
+                yield cost;
+            }
+            case Ir.Not not -> cost(not.condition());
+            case Ir.Equal equal -> cost(equal.first()) + cost(equal.second());
+            case Ir.Range range -> cost(range.expression());
+            case Ir.Matches matches -> cost(matches.expression());
+            case Ir.CountRange countRange -> countRange.offsets().length / 3 * (1 + cost(countRange.condition()));
+        };
+    }
+
+    private static int cost(Ir.Expression expression) {
+        return switch (expression) {
+            case Ir.Literal _ -> 0;
+            case Ir.SelfState _ -> 1;
+            case Ir.State _ -> 2;
+            case Ir.NeighborsCount count when count.boxes() != null -> count.boxes().size() * 8;
+            case Ir.NeighborsCount count -> count.offsets().length / 3 * (1 + cost(count.condition()));
+            // Only the first read of a shared count scans the neighbors
+            case Ir.SharedCount shared -> cost(shared.count()) / 2;
+            case Ir.Compare compare -> cost(compare.first()) + cost(compare.second());
+            case Ir.Operation operation -> 1 + cost(operation.first()) + cost(operation.second());
+        };
+    }
+}
@@ -1,16 +1,14 @@
 package net.goldenstack.minestom_ca.lang;
 
 import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
 import net.goldenstack.minestom_ca.lang.Scanner.Token;
 import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
 import net.minestom.server.instance.block.Block;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
-import static net.goldenstack.minestom_ca.Neighbors.NAMED;
 
 public final class Parser {
     private int line;
@@ -18,7 +16,8 @@ public final class Parser {
     private int index;
 
     private final Set<String> properties = new HashSet<>();
-    private final Set<Automata.CellRule.State> states = new HashSet<>();
+    // Bit widths declared with `name: bits` or `name: min-max`
+    private final Map<String, Integer> declaredWidths = new HashMap<>();
     private final List<Rule> rules = new ArrayList<>();
 
     public Parser() {
@@ -28,7 +27,12 @@ public final class Parser {
         this.line++;
         this.tokens = tokens;
         this.index = 0;
+        if (peek() instanceof Token.Identifier && peekNext() instanceof Token.Colon) {
+            nextDeclaration();
+            return;
+        }
         while (!isAtEnd()) {
+            final boolean randomTick = nextRandomTick();
             List<Rule.Condition> conditions = new ArrayList<>();
             List<Rule.Result> results = new ArrayList<>();
             while (!(peek() instanceof Token.Arrow)) {
@@ -36,10 +40,42 @@ public final class Parser {
                 if (peek() instanceof Token.And) advance();
             }
             consume(Token.Arrow.class, "Expected '->'");
-            while (!(peek() instanceof Token.EOF)) results.add(nextResult());
+            final Rule.Delay delay = nextDelay();
+            List<Point> wake = null;
+            while (!(peek() instanceof Token.EOF)) {
+                if (peek() instanceof Token.Identifier(String value) && value.equals("wake") &&
+                        !(peekNext() instanceof Token.Equals)) {
+                    wake = nextWake();
+                    if (!(peek() instanceof Token.EOF)) throw error("Expected end of rule after wake");
+                    break;
+                }
+                final Rule.Result result = nextResult();
+                if (delay != null && result instanceof Rule.Result.TriggerEvent) throw error("Events cannot be delayed");
+                results.add(result);
+            }
             this.rules.add(new Rule(conditions.size() == 1 ? conditions.getFirst() :
-                    new Rule.Condition.And(conditions), results));
+                    new Rule.Condition.And(conditions), results, delay, wake, randomTick));
+        }
+    }
+
+    private void nextDeclaration() {
+        final String state = consume(Token.Identifier.class, "Expected state name").value();
+        consume(Token.Colon.class, "Expected ':'");
+        final long first = consume(Token.Number.class, "Expected bit width or range").value();
+        final int width;
+        if (peek() instanceof Token.Minus) {
+            // Range of values
+            advance();
+            final long last = consume(Token.Number.class, "Expected range end").value();
+            if (last < first) throw error("Empty range " + first + "-" + last);
+            width = RuleAnalysis.bitWidth(last);
+        } else {
+            if (first < 1 || first > 64) throw error("Bit width must be between 1 and 64");
+            width = (int) first;
         }
+        if (!(peek() instanceof Token.EOF)) throw error("Expected end of declaration");
+        if (declaredWidths.put(state, width) != null) throw error("State " + state + " is already declared");
+        registerState(state);
     }
 
     private Rule.Condition nextCondition() {
@@ -50,19 +86,16 @@ public final class Parser {
 
         if (peek() instanceof Token.Constant) {
             // Self block check
-            final Block block = nextBlock();
-            return new Rule.Condition.Equal(block);
+            return nextBlockCondition();
         } else if (peek() instanceof Token.Exclamation) {
             // Self block check not
             advance();
-            final Token.Constant constant = consume(Token.Constant.class, "Expected constant");
-            final Block block = Block.fromKey(constant.value());
-            if (block == null) throw error("Unknown block " + constant.value());
-            return new Rule.Condition.Not(new Rule.Condition.Equal(block));
+            return new Rule.Condition.Not(nextBlockCondition());
         } else if (peek() instanceof Token.Identifier(String value)) {
             advance();
             if (!(peek() instanceof Token.At)) {
                 // Self identifier
+                registerState(value);
                 return switch (advance()) {
                     case Token.Equals ignored -> new Rule.Condition.Equal(
                             new Rule.Expression.State(value),
@@ -78,7 +111,7 @@ public final class Parser {
             } else {
                 // Neighbor block check
                 consume(Token.At.class, "Expected '@'");
-                final List<Point> targets = NAMED.get(value);
+                final List<Point> targets = neighbors(value);
                 Rule.Expression neighborsCount = new Rule.Expression.NeighborsCount(targets, nextCondition());
                 if (countPredicate.compare) {
                     return new Rule.Condition.Equal(
@@ -134,6 +167,73 @@ public final class Parser {
     record CountPredicate(int value, boolean compare, boolean not, int compareWith) {
     }
 
+    /**
+     * Parses the optional prefix of the rules only evaluated on random ticks: {@code random #dirt -> #grass_block}.
+     */
+    private boolean nextRandomTick() {
+        if (!(peek() instanceof Token.Identifier(String value) && value.equals("random"))) return false;
+        // A state named random is still a condition
+        final Token next = peekNext();
+        if (next instanceof Token.Equals || next instanceof Token.At || next instanceof Token.EOF) return false;
+        if (next instanceof Token.Exclamation && !(tokens.get(index + 2) instanceof Token.Constant)) return false;
+        advance();
+        return true;
+    }
+
+    /**
+     * Parses the optional delay of the results: {@code after 20}, {@code after random 20} for a random tick within the
+     * next 20 ticks, followed by {@code keep} to cancel the results if the states they write changed meanwhile.
+     */
+    private Rule.Delay nextDelay() {
+        if (!(peek() instanceof Token.Identifier(String after) && after.equals("after")) ||
+                peekNext() instanceof Token.Equals) {
+            return null;
+        }
+        advance();
+        boolean random = false;
+        if (peek() instanceof Token.Identifier(String value) && value.equals("random")) {
+            advance();
+            random = true;
+        }
+        final long ticks = consume(Token.Number.class, "Expected delay").value();
+        if (ticks < 1 || ticks > Rule.Delay.MAX_TICKS) {
+            throw error("Delay must be between 1 and " + Rule.Delay.MAX_TICKS + " ticks");
+        }
+        boolean keep = false;
+        if (peek() instanceof Token.Identifier(String value) && value.equals("keep") &&
+                !(peekNext() instanceof Token.Equals)) {
+            advance();
+            keep = true;
+        }
+        return new Rule.Delay((int) ticks, random, keep);
+    }
+
+    /**
+     * Parses the cells to wake once the results are applied: {@code wake none}, a named neighborhood such as
+     * {@code wake neumann3dself}, or offsets such as {@code wake {0, 0, 0} {1, 0, 0}}.
+     */
+    private List<Point> nextWake() {
+        advance();
+        if (peek() instanceof Token.Identifier(String value)) {
+            advance();
+            if (value.equals("none")) return List.of();
+            return neighbors(value);
+        }
+        List<Point> offsets = new ArrayList<>();
+        while (peek() instanceof Token.Offset(long x, long y, long z)) {
+            advance();
+            offsets.add(new Vec(x, y, z));
+        }
+        if (offsets.isEmpty()) throw error("Expected neighborhood, offsets or 'none'");
+        return offsets;
+    }
+
+    private List<Point> neighbors(String name) {
+        final List<Point> targets = Neighbors.named(name);
+        if (targets == null) throw error("Unknown neighborhood " + name);
+        return targets;
+    }
+
     private Rule.Result nextResult() {
         switch (peek()) {
             case Token.Constant _ -> {
@@ -153,7 +253,7 @@ public final class Parser {
                 // Block copy
                 advance();
                 Token.Identifier identifier = consume(Token.Identifier.class, "Expected identifier");
-                final List<Point> targets = NAMED.get(identifier.value());
+                final List<Point> targets = neighbors(identifier.value());
                 if (targets.size() > 1) throw error("Block copy can only be used with a single target");
                 final Point first = targets.getFirst();
                 return new Rule.Result.BlockCopy(first.blockX(), first.blockY(), first.blockZ());
@@ -196,7 +296,7 @@ public final class Parser {
                 } else {
                     // Neighbor state
                     advance();
-                    final List<Point> targets = NAMED.get(identifier.value());
+                    final List<Point> targets = neighbors(identifier.value());
                     final Point first = targets.getFirst();
                     final Token.Identifier identifier2 = consume(Token.Identifier.class, "Expected identifier");
                     final String state = identifier2.value();
@@ -222,6 +322,80 @@ public final class Parser {
         return expression;
     }
 
+    /**
+     * Parses a block check, either an exact state such as {@code #redstone_wire[power=15]} or a pattern.
+     * <p>
+     * A pattern is a property list using {@code *} or {@code !}: {@code #redstone_wire[north=!side]} matches any
+     * redstone wire whose north side is not {@code side}, {@code #redstone_wire[power=*]} any power and
+     * {@code #redstone_wire[*]} any state. The properties a pattern does not list may have any value.
+     */
+    private Rule.Condition nextBlockCondition() {
+        final Token.Constant constant = consume(Token.Constant.class, "Expected constant");
+        final Block block = Block.fromKey(constant.value());
+        if (block == null) throw error("Unknown block: " + constant.value());
+        if (!(peek() instanceof Token.LeftBracket) ||
+                !(peekNext() instanceof Token.Identifier || peekNext() instanceof Token.Star)) {
+            return new Rule.Condition.Equal(block);
+        }
+        advance();
+        Map<String, String> properties = new LinkedHashMap<>();
+        Set<String> negated = new HashSet<>();
+        boolean pattern = false;
+        while (!(peek() instanceof Token.RightBracket)) {
+            if (peek() instanceof Token.Star) {
+                // Any state
+                advance();
+                pattern = true;
+            } else {
+                final String name = consume(Token.Identifier.class, "Expected property name").value();
+                if (!block.properties().containsKey(name)) throw error("Unknown property " + name + " of " + block.name());
+                consume(Token.Equals.class, "Expected '='");
+                if (peek() instanceof Token.Star) {
+                    advance();
+                    pattern = true;
+                } else {
+                    if (peek() instanceof Token.Exclamation) {
+                        advance();
+                        negated.add(name);
+                        pattern = true;
+                    }
+                    properties.put(name, nextPropertyValue());
+                }
+            }
+            if (peek() instanceof Token.Comma) advance();
+        }
+        consume(Token.RightBracket.class, "Expected ']'");
+        if (!pattern) return new Rule.Condition.Equal(block.withProperties(properties));
+        BitSet states = new BitSet();
+        Map<String, Boolean> seen = new HashMap<>();
+        for (Block state : block.possibleStates()) {
+            boolean matches = true;
+            for (var entry : properties.entrySet()) {
+                final boolean equal = entry.getValue().equals(state.getProperty(entry.getKey()));
+                if (equal) seen.put(entry.getKey(), true);
+                if (equal == negated.contains(entry.getKey())) matches = false;
+            }
+            if (matches) states.set(state.stateId());
+        }
+        for (var entry : properties.entrySet()) {
+            if (!seen.containsKey(entry.getKey())) {
+                throw error("Unknown value " + entry.getValue() + " of property " + entry.getKey());
+            }
+        }
+        return new Rule.Condition.Pattern(states);
+    }
+
+    private String nextPropertyValue() {
+        if (peek() instanceof Token.Identifier(String value)) {
+            advance();
+            return value;
+        } else if (peek() instanceof Token.Number(long value)) {
+            advance();
+            return String.valueOf(value);
+        }
+        throw error("Expected property value");
+    }
+
     private Block nextBlock() {
         final Token.Constant constant = consume(Token.Constant.class, "Expected constant");
         Block block = Block.fromKey(constant.value());
@@ -232,17 +406,7 @@ public final class Parser {
             while (!(peek() instanceof Token.RightBracket)) {
                 final Token.Identifier propertyName = consume(Token.Identifier.class, "Expected property name");
                 consume(Token.Equals.class, "Expected '='");
-                String propertyValue;
-                if (peek() instanceof Token.Identifier(String value)) {
-                    advance();
-                    propertyValue = value;
-                } else if (peek() instanceof Token.Number(long value)) {
-                    advance();
-                    propertyValue = String.valueOf(value);
-                } else {
-                    throw error("Expected property value");
-                }
-                block = block.withProperty(propertyName.value(), propertyValue);
+                block = block.withProperty(propertyName.value(), nextPropertyValue());
                 if (peek() instanceof Token.Comma) advance();
             }
             consume(Token.RightBracket.class, "Expected ']'");
@@ -251,13 +415,15 @@ public final class Parser {
     }
 
     public Program program() {
+        final Map<String, Integer> widths = RuleAnalysis.stateWidths(rules, properties, declaredWidths);
+        Set<Automata.CellRule.State> states = new HashSet<>();
+        widths.forEach((name, width) -> states.add(new Automata.CellRule.State(name, width)));
         return new Program(rules, states);
     }
 
     void registerState(String identifier) {
-        if (properties.add(identifier)) {
-            states.add(new Automata.CellRule.State(identifier, 64));
-        }
+        if (identifier.equals(Automata.CellRule.BLOCK_STATE.name())) return;
+        properties.add(identifier);
     }
 
     <T extends Token> T consume(Class<T> type, String message) {
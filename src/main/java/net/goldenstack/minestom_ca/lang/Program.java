@@ -3,15 +3,18 @@ package net.goldenstack.minestom_ca.lang;
 import it.unimi.dsi.fastutil.ints.Int2LongMap;
 import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
 import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
 import net.minestom.server.coordinate.Point;
 import net.minestom.server.instance.block.Block;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 public record Program(List<Rule> rules, Set<Automata.CellRule.State> variables) {
     public Program {
@@ -20,154 +23,257 @@ public record Program(List<Rule> rules, Set<Automata.CellRule.State> variables)
     }
 
     public static Program fromFile(Path path) {
-        final String program;
-        try {
-            program = Files.readAllLines(path).stream().reduce("", (a, b) -> a + "\n" + b);
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            return fromReader(reader);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return fromString(program);
+    }
+
+    /**
+     * Parses a program line by line, without holding its whole source in memory.
+     */
+    public static Program fromReader(Reader reader) {
+        final BufferedReader buffered = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+        return parse(buffered.lines());
     }
 
     public static Program fromString(String program) {
-        List<String> lines = List.of(program.split("\n"));
-        Parser parser = new Parser();
-        for (String string : lines) {
-            List<Scanner.Token> tokens = new Scanner(string).scanTokens();
-            parser.feedTokens(tokens);
-        }
-        return parser.program();
+        return parse(program.lines());
+    }
+
+    /**
+     * Parses independent files in parallel, then merges them in order with {@link #merge(List)}.
+     */
+    public static Program fromFiles(List<Path> paths) {
+        return merge(paths.parallelStream().map(Program::fromFile).toList());
     }
 
-    private Automata.CellRule.State var(String name) {
-        for (Automata.CellRule.State state : variables) {
-            if (state.name().equals(name)) {
-                return state;
+    /**
+     * Concatenates the rules of several programs, a state used by several programs takes its largest width.
+     */
+    public static Program merge(List<Program> programs) {
+        List<Rule> rules = new ArrayList<>();
+        Map<String, Integer> widths = new HashMap<>();
+        for (Program program : programs) {
+            rules.addAll(program.rules());
+            for (Automata.CellRule.State state : program.variables()) {
+                widths.merge(state.name(), state.bitSize(), Math::max);
             }
         }
-        throw new IllegalArgumentException("Unknown variable: " + name);
+        Set<Automata.CellRule.State> states = new HashSet<>();
+        widths.forEach((name, width) -> states.add(new Automata.CellRule.State(name, width)));
+        return new Program(rules, states);
+    }
+
+    private static Program parse(Stream<String> lines) {
+        Parser parser = new Parser();
+        lines.forEachOrdered(line -> parser.feedTokens(new Scanner(line).scanTokens()));
+        return parser.program();
     }
 
     public Automata.CellRule makeCellRule() {
-        boolean[] trackedStates = new boolean[Short.MAX_VALUE];
+        List<Rule> tickRules = new ArrayList<>();
+        List<Rule> randomRules = new ArrayList<>();
+        for (Rule rule : rules) (rule.randomTick() ? randomRules : tickRules).add(rule);
+        return new ProgramRule(tickRules, randomRules);
+    }
+
+    /**
+     * Gets the values the conditions of rules compare with, which include the block states they test.
+     */
+    private static BitSet comparedStates(List<Rule> rules) {
+        BitSet states = new BitSet();
         for (Rule rule : rules) {
             RuleAnalysis.queryExpression(rule.condition(), Rule.Expression.Literal.class, literal -> {
-                if (literal.value() < 0 || literal.value() >= trackedStates.length) return;
-                trackedStates[literal.value()] = true;
+                if (literal.value() >= 0) states.set(literal.value());
             });
+            RuleAnalysis.queryCondition(rule.condition(), Rule.Condition.Pattern.class,
+                    pattern -> states.or(pattern.states()));
         }
-        return new Automata.CellRule() {
-            @Override
-            public void init(Map<State, Integer> mapping) {
-            }
-
-            @Override
-            public List<Action> process(Automata.Query query) {
-                Int2LongMap block = null;
-                for (Rule rule : rules) {
-                    if (!verifyCondition(0, 0, 0, query, rule.condition())) continue;
-                    if (block == null) block = new Int2LongOpenHashMap();
-                    for (Rule.Result result : rule.results()) {
-                        switch (result) {
-                            case Rule.Result.SetState set -> {
-                                final String state = set.state();
-                                final long value = expression(0, 0, 0, query, set.expression());
-                                block.put(query.stateIndex(var(state)), value);
-                            }
-                            case Rule.Result.BlockCopy blockCopy -> {
-                                final int blockX = blockCopy.x();
-                                final int blockY = blockCopy.y();
-                                final int blockZ = blockCopy.z();
-                                final long[] queryIndexes = query.queryIndexes(blockX, blockY, blockZ);
-                                for (int i = 0; i < queryIndexes.length; i++) {
-                                    final long value = queryIndexes[i];
-                                    block.put(i, value);
-                                }
-                            }
-                            case Rule.Result.TriggerEvent triggerEvent -> {
-                                final String eventName = triggerEvent.event();
-                                final Rule.Expression eventExpression = triggerEvent.expression();
-                                if (eventExpression != null) {
-                                    final long value = expression(0, 0, 0, query, eventExpression);
-                                    System.out.println("Event: " + eventName + "=" + value);
-                                } else {
-                                    System.out.println("Event: " + eventName);
-                                }
-                            }
-                        }
-                    }
-                }
-                if (block == null) return null;
-                return List.of(Automata.CellRule.Action.UpdateState(block));
-            }
+        return states;
+    }
 
-            @Override
-            public boolean tracked(Block block) {
-                final int state = block.stateId();
-                return state >= 0 && state < trackedStates.length && trackedStates[state];
+    /**
+     * Evaluates compiled rules on a cell, the count cache of the rules must have been reset.
+     */
+    private static List<Automata.CellRule.Action> evaluate(Ir.CompiledRule[] compiled, Automata.Query query) {
+        Int2LongMap block = null;
+        List<Point> wake = null;
+        List<Automata.CellRule.Action> scheduled = null;
+        for (Ir.CompiledRule rule : compiled) {
+            if (!rule.condition().test(query, 0, 0, 0)) continue;
+            if (rule.delay() != null) {
+                if (scheduled == null) scheduled = new ArrayList<>();
+                scheduled.add(rule.schedule(query));
+                continue;
             }
+            if (block == null) block = new Int2LongOpenHashMap();
+            wake = Ir.mergeWake(wake, rule.wake());
+            rule.apply(query, block);
+        }
+        return actions(block, wake, scheduled);
+    }
 
-            @Override
-            public Set<State> states() {
-                return variables;
-            }
-        };
+    /**
+     * Gets the actions of a cell, the immediate changes first.
+     */
+    private static List<Automata.CellRule.Action> actions(Int2LongMap block, List<Point> wake,
+                                                         List<Automata.CellRule.Action> scheduled) {
+        final Automata.CellRule.Action update = block != null ?
+                Automata.CellRule.Action.UpdateState(block).withWakePoints(wake) : null;
+        if (scheduled == null) return update != null ? List.of(update) : null;
+        if (update != null) scheduled.addFirst(update);
+        return scheduled;
     }
 
-    private boolean verifyCondition(int x, int y, int z, Automata.Query query, Rule.Condition condition) {
-        return switch (condition) {
-            case Rule.Condition.And and -> {
-                for (Rule.Condition c : and.conditions()) {
-                    if (!verifyCondition(x, y, z, query, c)) yield false;
-                }
-                yield true;
+    private class ProgramRule implements Automata.CellRule {
+        final List<Rule> tickRules;
+        final List<Rule> randomRules;
+        final BitSet trackedStates;
+        final BitSet randomTickedStates;
+        final List<Point> wakePoints;
+        final List<Point> defaultWake;
+        Ir.CompiledRule[] compiled;
+        Ir.CountCache countCache;
+        TransitionTable table;
+        Ir.CompiledRule[] randomCompiled;
+        Ir.CountCache randomCountCache;
+
+        ProgramRule(List<Rule> tickRules, List<Rule> randomRules) {
+            this.tickRules = tickRules;
+            this.randomRules = randomRules;
+            this.trackedStates = comparedStates(tickRules);
+            // Random tick rules only run on the cells sampled among the blocks they test
+            this.randomTickedStates = comparedStates(randomRules);
+            // Cells are only read by random tick rules when sampled, they never need to be woken for them
+            this.wakePoints = RuleAnalysis.wakePoints(tickRules);
+            this.defaultWake = RuleAnalysis.defaultWake(tickRules);
+        }
+
+        @Override
+        public void init(Map<State, Integer> mapping) {
+            Map<String, Integer> indexes = new HashMap<>();
+            for (State state : variables) {
+                final Integer index = mapping.get(state);
+                if (index != null) indexes.put(state.name(), index);
             }
-            case Rule.Condition.Equal equal -> {
-                final long first = expression(x, y, z, query, equal.first());
-                final long second = expression(x, y, z, query, equal.second());
-                yield first == second;
+            // The block state is not part of the world mapping, it is always stored at index 0
+            indexes.put(BLOCK_STATE.name(), 0);
+            final ToIntFunction<String> index = name -> {
+                final Integer value = indexes.get(name);
+                if (value == null) throw new IllegalArgumentException("Unknown variable: " + name);
+                return value;
+            };
+            final Optimizer.Optimized optimized = Optimizer.optimize(Ir.lower(tickRules, index, defaultWake));
+            this.compiled = optimized.rules();
+            this.countCache = optimized.cache();
+            this.table = TransitionTable.build(optimized.rules());
+            final Optimizer.Optimized random = Optimizer.optimize(Ir.lower(randomRules, index, defaultWake));
+            this.randomCompiled = random.rules();
+            this.randomCountCache = random.cache();
+        }
+
+        /**
+         * Gets the compiled rules, ready to evaluate a new cell.
+         */
+        Ir.CompiledRule[] compiled() {
+            final Ir.CompiledRule[] compiled = this.compiled;
+            if (compiled == null) throw new IllegalStateException("Rule has not been initialized");
+            if (countCache != null) countCache.reset();
+            return compiled;
+        }
+
+        @Override
+        public List<Action> process(Automata.Query query) {
+            final TransitionTable table = this.table;
+            if (table != null) return table.process(query);
+            return evaluate(compiled(), query);
+        }
+
+        @Override
+        public boolean randomTicked(Block block) {
+            final int state = block.stateId();
+            return state >= 0 && randomTickedStates.get(state);
+        }
+
+        @Override
+        public List<Action> randomTick(Automata.Query query) {
+            final Ir.CompiledRule[] compiled = this.randomCompiled;
+            if (compiled == null) throw new IllegalStateException("Rule has not been initialized");
+            if (compiled.length == 0) return null;
+            if (randomCountCache != null) randomCountCache.reset();
+            return evaluate(compiled, query);
+        }
+
+        @Override
+        public boolean tracked(Block block) {
+            final int state = block.stateId();
+            return state >= 0 && trackedStates.get(state);
+        }
+
+        @Override
+        public List<Point> wakePoints() {
+            return wakePoints;
+        }
+
+        @Override
+        public Set<State> states() {
+            return variables;
+        }
+
+        @Override
+        public Automata.CellRule profiled(RuleProfiler profiler, String name) {
+            // Named after their position in the program
+            RuleProfiler.Entry[] entries = new RuleProfiler.Entry[tickRules.size()];
+            for (int i = 0, entry = 0; i < rules.size(); i++) {
+                if (!rules.get(i).randomTick()) entries[entry++] = profiler.entry(name + "/rule" + i);
             }
-            case Rule.Condition.Not not -> !verifyCondition(x, y, z, query, not.condition());
-        };
+            return profiler.wrap(name, new ProfiledProgramRule(tickRules, randomRules, entries));
+        }
     }
 
-    private long expression(int x, int y, int z, Automata.Query query, Rule.Expression expression) {
-        return switch (expression) {
-            case Rule.Expression.State state -> {
-                final String stateName = state.state();
-                yield query.stateAt(x, y, z, var(stateName));
-            }
-            case Rule.Expression.NeighborState neighbor -> expression(
-                    x + neighbor.x(), y + neighbor.y(), z + neighbor.z(),
-                    query,
-                    new Rule.Expression.State(neighbor.state()));
-            case Rule.Expression.Literal literal -> literal.value();
-            case Rule.Expression.NeighborsCount neighborsCount -> {
-                int count = 0;
-                for (Point offset : neighborsCount.offsets()) {
-                    final int nX = x + offset.blockX();
-                    final int nY = y + offset.blockY();
-                    final int nZ = z + offset.blockZ();
-                    if (verifyCondition(nX, nY, nZ, query, neighborsCount.condition())) count++;
+    /**
+     * Same as {@link ProgramRule}, recording each rule of the program separately.
+     * <p>
+     * Always uses the general evaluator, the transition table does not tell rules apart. Random ticks are only recorded
+     * as a whole.
+     */
+    private final class ProfiledProgramRule extends ProgramRule {
+        private final RuleProfiler.Entry[] entries;
+
+        ProfiledProgramRule(List<Rule> tickRules, List<Rule> randomRules, RuleProfiler.Entry[] entries) {
+            super(tickRules, randomRules);
+            this.entries = entries;
+        }
+
+        @Override
+        public List<Action> process(Automata.Query query) {
+            final Ir.CompiledRule[] compiled = compiled();
+            Int2LongMap block = null;
+            List<Point> wake = null;
+            List<Action> scheduled = null;
+            for (int i = 0; i < compiled.length; i++) {
+                final Ir.CompiledRule rule = compiled[i];
+                final long start = System.nanoTime();
+                final boolean matches = rule.condition().test(query, 0, 0, 0);
+                // The immediate results of all rules share one action, counted for the first rule writing to it
+                int actions = 0;
+                if (matches && rule.delay() != null) {
+                    if (scheduled == null) scheduled = new ArrayList<>();
+                    scheduled.add(rule.schedule(query));
+                    actions = 1;
+                } else if (matches) {
+                    if (block == null) {
+                        block = new Int2LongOpenHashMap();
+                        actions = 1;
+                    }
+                    wake = Ir.mergeWake(wake, rule.wake());
+                    rule.apply(query, block);
                 }
-                yield count;
+                entries[i].record(System.nanoTime() - start, matches, actions);
             }
-            case Rule.Expression.Compare compare -> {
-                final long first = expression(x, y, z, query, compare.first());
-                final long second = expression(x, y, z, query, compare.second());
-                yield (long) Math.signum(first - second);
-            }
-            case Rule.Expression.Operation operation -> {
-                final long first = expression(x, y, z, query, operation.first());
-                final long second = expression(x, y, z, query, operation.second());
-                yield switch (operation.type()) {
-                    case ADD -> first + second;
-                    case SUBTRACT -> first - second;
-                    case MULTIPLY -> first * second;
-                    case DIVIDE -> first / second;
-                    case MODULO -> first % second;
-                };
-            }
-        };
+            return actions(block, wake, scheduled);
+        }
     }
 }
@@ -0,0 +1,277 @@
+package net.goldenstack.minestom_ca.lang;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Binary cache of parsed programs, keyed by the SHA-256 of their sources.
+ * <p>
+ * Blocks are stored as state ids, so the key also covers the Minecraft version. Loading a cached program skips
+ * scanning, parsing and block resolution entirely; a missing, outdated or unreadable entry is parsed again and
+ * rewritten. The cache is best effort: an entry that cannot be written is only logged.
+ */
+public final class ProgramCache {
+    private static final int MAGIC = 0x4D434143; // MCAC
+    private static final int VERSION = 2;
+
+    private final Path directory;
+
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the program made of a list of files, see {@link Program#fromFiles(List)}.
+     */
+    public Program load(List<Path> paths) {
+        final Path entry;
+        try {
+            entry = directory.resolve(key(paths) + ".bin");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (Files.isRegularFile(entry)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+                return read(input);
+            } catch (IOException | RuntimeException _) {
+                // Corrupted or written by another version, parse again
+            }
+        }
+        // Sources are streamed twice, once to hash them and once to parse them, rather than held in memory
+        final Program program = Program.fromFiles(paths);
+        try {
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, "program", ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                write(program, output);
+            }
+            try {
+                Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException _) {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            MinecraftServer.LOGGER.warn("Could not cache program {}", entry, e);
+        }
+        return program;
+    }
+
+    private static String key(List<Path> paths) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(("v" + VERSION + "/" + MinecraftServer.VERSION_NAME).getBytes(StandardCharsets.UTF_8));
+        final byte[] buffer = new byte[8192];
+        for (Path path : paths) {
+            long length = 0;
+            try (InputStream input = Files.newInputStream(path)) {
+                for (int read; (read = input.read(buffer)) >= 0; length += read) digest.update(buffer, 0, read);
+            }
+            // Length suffixed, so that moving lines between files changes the key
+            for (int shift = 56; shift >= 0; shift -= 8) digest.update((byte) (length >>> shift));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static void write(Program program, DataOutput output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(program.variables().size());
+        for (Automata.CellRule.State state : program.variables()) {
+            output.writeUTF(state.name());
+            output.writeByte(state.bitSize());
+        }
+        output.writeInt(program.rules().size());
+        for (Rule rule : program.rules()) {
+            writeCondition(rule.condition(), output);
+            output.writeInt(rule.results().size());
+            for (Rule.Result result : rule.results()) writeResult(result, output);
+            final Rule.Delay delay = rule.delay();
+            output.writeBoolean(delay != null);
+            if (delay != null) {
+                output.writeByte(delay.ticks());
+                output.writeBoolean(delay.random());
+                output.writeBoolean(delay.keep());
+            }
+            output.writeBoolean(rule.wake() != null);
+            if (rule.wake() != null) writePoints(rule.wake(), output);
+            output.writeBoolean(rule.randomTick());
+        }
+    }
+
+    public static Program read(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+            throw new IllegalArgumentException("Not a compiled program of version " + VERSION);
+        }
+        final int stateCount = input.readInt();
+        Set<Automata.CellRule.State> states = new HashSet<>(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            states.add(new Automata.CellRule.State(input.readUTF(), input.readUnsignedByte()));
+        }
+        final int ruleCount = input.readInt();
+        List<Rule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            final Rule.Condition condition = readCondition(input);
+            final int resultCount = input.readInt();
+            List<Rule.Result> results = new ArrayList<>(resultCount);
+            for (int j = 0; j < resultCount; j++) results.add(readResult(input));
+            final Rule.Delay delay = input.readBoolean() ?
+                    new Rule.Delay(input.readUnsignedByte(), input.readBoolean(), input.readBoolean()) : null;
+            final List<Point> wake = input.readBoolean() ? readPoints(input) : null;
+            rules.add(new Rule(condition, results, delay, wake, input.readBoolean()));
+        }
+        return new Program(rules, states);
+    }
+
+    private static void writeCondition(Rule.Condition condition, DataOutput output) throws IOException {
+        switch (condition) {
+            case Rule.Condition.And and -> {
+                output.writeByte(0);
+                output.writeInt(and.conditions().size());
+                for (Rule.Condition c : and.conditions()) writeCondition(c, output);
+            }
+            case Rule.Condition.Not not -> {
+                output.writeByte(1);
+                writeCondition(not.condition(), output);
+            }
+            case Rule.Condition.Equal equal -> {
+                output.writeByte(2);
+                writeExpression(equal.first(), output);
+                writeExpression(equal.second(), output);
+            }
+            case Rule.Condition.Pattern pattern -> {
+                output.writeByte(3);
+                final long[] words = pattern.states().toLongArray();
+                output.writeInt(words.length);
+                for (long word : words) output.writeLong(word);
+            }
+        }
+    }
+
+    private static Rule.Condition readCondition(DataInput input) throws IOException {
+        return switch (input.readUnsignedByte()) {
+            case 0 -> {
+                final int count = input.readInt();
+                List<Rule.Condition> conditions = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) conditions.add(readCondition(input));
+                yield new Rule.Condition.And(conditions);
+            }
+            case 1 -> new Rule.Condition.Not(readCondition(input));
+            case 2 -> new Rule.Condition.Equal(readExpression(input), readExpression(input));
+            case 3 -> {
+                final long[] words = new long[input.readInt()];
+                for (int i = 0; i < words.length; i++) words[i] = input.readLong();
+                yield new Rule.Condition.Pattern(BitSet.valueOf(words));
+            }
+            default -> throw new IllegalArgumentException("Unknown condition tag");
+        };
+    }
+
+    private static void writeExpression(Rule.Expression expression, DataOutput output) throws IOException {
+        switch (expression) {
+            case Rule.Expression.Literal literal -> {
+                output.writeByte(0);
+                output.writeInt(literal.value());
+            }
+            case Rule.Expression.State state -> {
+                output.writeByte(1);
+                output.writeUTF(state.state());
+            }
+            case Rule.Expression.NeighborState neighborState -> {
+                output.writeByte(2);
+                output.writeInt(neighborState.x());
+                output.writeInt(neighborState.y());
+                output.writeInt(neighborState.z());
+                output.writeUTF(neighborState.state());
+            }
+            case Rule.Expression.NeighborsCount count -> {
+                output.writeByte(3);
+                writePoints(count.offsets(), output);
+                writeCondition(count.condition(), output);
+            }
+            case Rule.Expression.Compare compare -> {
+                output.writeByte(4);
+                writeExpression(compare.first(), output);
+                writeExpression(compare.second(), output);
+            }
+            case Rule.Expression.Operation operation -> {
+                output.writeByte(5);
+                writeExpression(operation.first(), output);
+                writeExpression(operation.second(), output);
+                output.writeByte(operation.type().ordinal());
+            }
+        }
+    }
+
+    private static Rule.Expression readExpression(DataInput input) throws IOException {
+        return switch (input.readUnsignedByte()) {
+            case 0 -> new Rule.Expression.Literal(input.readInt());
+            case 1 -> new Rule.Expression.State(input.readUTF());
+            case 2 -> new Rule.Expression.NeighborState(input.readInt(), input.readInt(), input.readInt(), input.readUTF());
+            case 3 -> new Rule.Expression.NeighborsCount(readPoints(input), readCondition(input));
+            case 4 -> new Rule.Expression.Compare(readExpression(input), readExpression(input));
+            case 5 -> new Rule.Expression.Operation(readExpression(input), readExpression(input),
+                    Rule.Expression.Operation.Type.values()[input.readUnsignedByte()]);
+            default -> throw new IllegalArgumentException("Unknown expression tag");
+        };
+    }
+
+    private static void writeResult(Rule.Result result, DataOutput output) throws IOException {
+        switch (result) {
+            case Rule.Result.SetState set -> {
+                output.writeByte(0);
+                output.writeUTF(set.state());
+                writeExpression(set.expression(), output);
+            }
+            case Rule.Result.BlockCopy copy -> {
+                output.writeByte(1);
+                output.writeInt(copy.x());
+                output.writeInt(copy.y());
+                output.writeInt(copy.z());
+            }
+            case Rule.Result.TriggerEvent event -> {
+                output.writeByte(2);
+                output.writeUTF(event.event());
+                output.writeBoolean(event.expression() != null);
+                if (event.expression() != null) writeExpression(event.expression(), output);
+            }
+        }
+    }
+
+    private static Rule.Result readResult(DataInput input) throws IOException {
+        return switch (input.readUnsignedByte()) {
+            case 0 -> new Rule.Result.SetState(input.readUTF(), readExpression(input));
+            case 1 -> new Rule.Result.BlockCopy(input.readInt(), input.readInt(), input.readInt());
+            case 2 -> new Rule.Result.TriggerEvent(input.readUTF(), input.readBoolean() ? readExpression(input) : null);
+            default -> throw new IllegalArgumentException("Unknown result tag");
+        };
+    }
+
+    private static void writePoints(List<Point> points, DataOutput output) throws IOException {
+        output.writeInt(points.size());
+        for (Point point : points) {
+            output.writeInt(point.blockX());
+            output.writeInt(point.blockY());
+            output.writeInt(point.blockZ());
+        }
+    }
+
+    private static List<Point> readPoints(DataInput input) throws IOException {
+        final int count = input.readInt();
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) points.add(new Vec(input.readInt(), input.readInt(), input.readInt()));
+        return points;
+    }
+}
@@ -7,20 +7,61 @@ import net.minestom.server.instance.block.Block;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * A generic rule for a cellular automata situated in a Minecraft world.
+ *
+ * @param delay      when to apply the results, null to apply them immediately
+ * @param wake       the cells to wake once the results are applied, relative to the cell, null to wake the cells
+ *                   whose rules read it
+ * @param randomTick whether the rule is only evaluated on the random ticks of the cells of the blocks it tests, see
+ *                   {@link Automata.CellRule#randomTick(Automata.Query)}
  */
-public record Rule(@NotNull Condition condition, List<Result> results) {
+public record Rule(@NotNull Condition condition, List<Result> results, @Nullable Delay delay, @Nullable List<Point> wake,
+                   boolean randomTick) {
     public Rule {
         results = List.copyOf(results);
+        if (wake != null) wake = List.copyOf(wake);
+    }
+
+    public Rule(Condition condition, List<Result> results, @Nullable Delay delay, @Nullable List<Point> wake) {
+        this(condition, results, delay, wake, false);
+    }
+
+    public Rule(Condition condition, List<Result> results) {
+        this(condition, results, null, null);
     }
 
     public Rule(Condition condition, Result... results) {
         this(condition, List.of(results));
     }
 
+    /**
+     * Postpones the results of a rule, the cell sleeps until they are applied.
+     * <p>
+     * Random waits are drawn from {@link Automata.Query#random()}, so runs with the same seed are identical. Each
+     * matching cell still gets its own timer, slow random growth is cheaper as a random tick rule.
+     *
+     * @param ticks  the number of ticks to wait, or the upper bound of the wait if random
+     * @param random whether to wait a uniformly random number of ticks between 1 and {@code ticks}
+     * @param keep   whether to only apply the results if the states they write still hold the values they had
+     *               when the rule matched
+     */
+    public record Delay(int ticks, boolean random, boolean keep) {
+        /**
+         * Longest delay, the timer wheels of the worlds span 255 ticks.
+         */
+        public static final int MAX_TICKS = 254;
+
+        public Delay {
+            if (ticks < 1 || ticks > MAX_TICKS) {
+                throw new IllegalArgumentException("Delay must be between 1 and " + MAX_TICKS + " ticks");
+            }
+        }
+    }
+
     public sealed interface Condition {
         record And(@NotNull List<Condition> conditions) implements Condition {
             public And {
@@ -40,6 +81,20 @@ public record Rule(@NotNull Condition condition, List<Result> results) {
                 this(new Expression.State(Automata.CellRule.BLOCK_STATE.name()), new Expression.Literal(block.stateId()));
             }
         }
+
+        /**
+         * Checks that the block state is one of a set of state ids.
+         */
+        record Pattern(@NotNull BitSet states) implements Condition {
+            public Pattern {
+                states = (BitSet) states.clone();
+            }
+
+            @Override
+            public @NotNull BitSet states() {
+                return (BitSet) states.clone();
+            }
+        }
     }
 
     public sealed interface Result {
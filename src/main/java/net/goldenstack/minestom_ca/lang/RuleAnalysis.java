@@ -1,5 +1,11 @@
 package net.goldenstack.minestom_ca.lang;
 
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+
+import java.util.*;
 import java.util.function.Consumer;
 
 /**
@@ -18,9 +24,42 @@ public final class RuleAnalysis {
                 queryExpression(equal.second(), type, consumer);
             }
             case Rule.Condition.Not not -> queryExpression(not.condition(), type, consumer);
+            case Rule.Condition.Pattern pattern -> {
+                // Empty
+            }
+        }
+    }
+
+    /**
+     * Visits the conditions of a type, including the ones checked on neighbors.
+     */
+    public static <T extends Rule.Condition> void queryCondition(Rule.Condition condition, Class<T> type, Consumer<T> consumer) {
+        if (type.isInstance(condition)) {
+            consumer.accept(type.cast(condition));
+            return;
+        }
+        switch (condition) {
+            case Rule.Condition.And and -> {
+                for (Rule.Condition c : and.conditions()) {
+                    queryCondition(c, type, consumer);
+                }
+            }
+            case Rule.Condition.Equal equal -> {
+                queryCondition(equal.first(), type, consumer);
+                queryCondition(equal.second(), type, consumer);
+            }
+            case Rule.Condition.Not not -> queryCondition(not.condition(), type, consumer);
+            case Rule.Condition.Pattern pattern -> {
+                // Empty
+            }
         }
     }
 
+    private static <T extends Rule.Condition> void queryCondition(Rule.Expression expression, Class<T> type, Consumer<T> consumer) {
+        queryExpression(expression, Rule.Expression.NeighborsCount.class,
+                neighborsCount -> queryCondition(neighborsCount.condition(), type, consumer));
+    }
+
     public static <T extends Rule.Expression> void queryExpression(Rule.Expression expression, Class<T> type, Consumer<T> consumer) {
         if (type.isInstance(expression)) {
             consumer.accept(type.cast(expression));
@@ -49,4 +88,223 @@ public final class RuleAnalysis {
             }
         }
     }
+
+    /**
+     * Gets the cells to wake when a cell changes, so that every rule reading it is evaluated again.
+     * <p>
+     * These are the offsets read by the rules mirrored, starting with the cell itself.
+     */
+    public static List<Point> wakePoints(List<Rule> rules) {
+        Set<Point> reads = new LinkedHashSet<>();
+        reads.add(Vec.ZERO);
+        for (Rule rule : rules) {
+            conditionReads(rule.condition(), Vec.ZERO, reads);
+            for (Rule.Result result : rule.results()) {
+                switch (result) {
+                    case Rule.Result.SetState set -> expressionReads(set.expression(), Vec.ZERO, reads);
+                    case Rule.Result.BlockCopy copy -> reads.add(new Vec(copy.x(), copy.y(), copy.z()));
+                    case Rule.Result.TriggerEvent event -> {
+                        if (event.expression() != null) expressionReads(event.expression(), Vec.ZERO, reads);
+                    }
+                }
+            }
+        }
+        List<Point> wakePoints = new ArrayList<>(reads.size());
+        for (Point read : reads) wakePoints.add(Vec.ZERO.sub(read));
+        return List.copyOf(wakePoints);
+    }
+
+    /**
+     * Gets the cells woken by the results of rules without an explicit wake set.
+     * <p>
+     * Programs may be composed with other rules reading the cells they write, so the default covers the radius 1
+     * neighborhood like Java rules do, in addition to the reads of the program. Only an explicit {@code wake} narrows it.
+     */
+    public static List<Point> defaultWake(List<Rule> rules) {
+        Set<Point> wake = new LinkedHashSet<>(Neighbors.MOORE_3D_SELF);
+        wake.addAll(wakePoints(rules));
+        return List.copyOf(wake);
+    }
+
+    private static void conditionReads(Rule.Condition condition, Vec base, Set<Point> reads) {
+        switch (condition) {
+            case Rule.Condition.And and -> {
+                for (Rule.Condition c : and.conditions()) conditionReads(c, base, reads);
+            }
+            case Rule.Condition.Not not -> conditionReads(not.condition(), base, reads);
+            case Rule.Condition.Equal equal -> {
+                expressionReads(equal.first(), base, reads);
+                expressionReads(equal.second(), base, reads);
+            }
+            case Rule.Condition.Pattern _ -> reads.add(base);
+        }
+    }
+
+    private static void expressionReads(Rule.Expression expression, Vec base, Set<Point> reads) {
+        switch (expression) {
+            case Rule.Expression.Literal _ -> {
+            }
+            case Rule.Expression.State _ -> reads.add(base);
+            case Rule.Expression.NeighborState neighbor -> reads.add(base.add(neighbor.x(), neighbor.y(), neighbor.z()));
+            case Rule.Expression.NeighborsCount count -> {
+                for (Point offset : count.offsets()) conditionReads(count.condition(), base.add(offset), reads);
+            }
+            case Rule.Expression.Compare compare -> {
+                expressionReads(compare.first(), base, reads);
+                expressionReads(compare.second(), base, reads);
+            }
+            case Rule.Expression.Operation operation -> {
+                expressionReads(operation.first(), base, reads);
+                expressionReads(operation.second(), base, reads);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bits needed to store a value, 64 for negative values.
+     */
+    public static int bitWidth(long value) {
+        if (value < 0) return 64;
+        return Math.max(1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Computes the bit width of each state.
+     * <p>
+     * Declared widths are kept as is. Other states are sized from the values the rules assign to them, literals,
+     * neighbor counts, copies of other states and the growth of additions and multiplications, and from the literals
+     * their conditions compare them with, so that placed values the rules test fit. States assigned from
+     * subtractions or comparisons, which may be negative, and states only written by placements keep 64 bits.
+     * <p>
+     * Worlds only keep the low bits of placed values wider than their state.
+     *
+     * @param rules    the rules of the program
+     * @param states   the names of all the states used by the program
+     * @param declared the widths declared in the program
+     * @return the width of each state
+     */
+    public static Map<String, Integer> stateWidths(List<Rule> rules, Set<String> states, Map<String, Integer> declared) {
+        Map<String, List<Rule.Expression>> assignments = new HashMap<>();
+        for (Rule rule : rules) {
+            for (Rule.Result result : rule.results()) {
+                if (result instanceof Rule.Result.SetState(String state, Rule.Expression expression)) {
+                    assignments.computeIfAbsent(state, _ -> new ArrayList<>()).add(expression);
+                }
+            }
+        }
+        Map<String, Integer> compared = new HashMap<>();
+        for (Rule rule : rules) comparedWidths(rule.condition(), compared);
+        Map<String, Integer> widths = new HashMap<>();
+        for (String state : states) {
+            final Integer width = declared.get(state);
+            widths.put(state, width != null ? width : assignments.containsKey(state) ? compared.getOrDefault(state, 1) : 64);
+        }
+        // Widen until every assignment fits, widths only grow so this terminates
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (var entry : assignments.entrySet()) {
+                final String state = entry.getKey();
+                if (!widths.containsKey(state) || declared.containsKey(state)) continue;
+                int width = widths.get(state);
+                for (Rule.Expression expression : entry.getValue()) {
+                    width = Math.max(width, expressionWidth(expression, widths));
+                }
+                if (width != widths.get(state)) {
+                    widths.put(state, width);
+                    changed = true;
+                }
+            }
+        }
+        // Literals written to declared states must fit
+        for (var entry : assignments.entrySet()) {
+            final Integer width = declared.get(entry.getKey());
+            if (width == null) continue;
+            for (Rule.Expression expression : entry.getValue()) {
+                if (expression instanceof Rule.Expression.Literal(int value) && bitWidth(value) > width) {
+                    throw new IllegalArgumentException("Value " + value + " does not fit in state " +
+                            entry.getKey() + " (" + width + " bits)");
+                }
+            }
+        }
+        return widths;
+    }
+
+    /**
+     * Collects the widths of the literals states are compared with.
+     */
+    private static void comparedWidths(Rule.Condition condition, Map<String, Integer> widths) {
+        switch (condition) {
+            case Rule.Condition.And and -> {
+                for (Rule.Condition c : and.conditions()) comparedWidths(c, widths);
+            }
+            case Rule.Condition.Not not -> comparedWidths(not.condition(), widths);
+            case Rule.Condition.Equal equal -> {
+                compared(equal.first(), equal.second(), widths);
+                comparedWidths(equal.first(), widths);
+                comparedWidths(equal.second(), widths);
+            }
+            case Rule.Condition.Pattern _ -> {
+            }
+        }
+    }
+
+    private static void comparedWidths(Rule.Expression expression, Map<String, Integer> widths) {
+        switch (expression) {
+            case Rule.Expression.NeighborsCount count -> comparedWidths(count.condition(), widths);
+            case Rule.Expression.Compare compare -> {
+                compared(compare.first(), compare.second(), widths);
+                comparedWidths(compare.first(), widths);
+                comparedWidths(compare.second(), widths);
+            }
+            case Rule.Expression.Operation operation -> {
+                comparedWidths(operation.first(), widths);
+                comparedWidths(operation.second(), widths);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void compared(Rule.Expression first, Rule.Expression second, Map<String, Integer> widths) {
+        if (second instanceof Rule.Expression.Literal(int value)) comparedState(first, value, widths);
+        if (first instanceof Rule.Expression.Literal(int value)) comparedState(second, value, widths);
+    }
+
+    private static void comparedState(Rule.Expression expression, int value, Map<String, Integer> widths) {
+        final String state = switch (expression) {
+            case Rule.Expression.State(String name) -> name;
+            case Rule.Expression.NeighborState neighborState -> neighborState.state();
+            default -> null;
+        };
+        if (state != null) widths.merge(state, bitWidth(value), Math::max);
+    }
+
+    private static int expressionWidth(Rule.Expression expression, Map<String, Integer> widths) {
+        return switch (expression) {
+            case Rule.Expression.Literal literal -> bitWidth(literal.value());
+            case Rule.Expression.State state -> stateWidth(state.state(), widths);
+            case Rule.Expression.NeighborState neighborState -> stateWidth(neighborState.state(), widths);
+            case Rule.Expression.NeighborsCount neighborsCount -> bitWidth(neighborsCount.offsets().size());
+            // Comparisons may yield -1
+            case Rule.Expression.Compare _ -> 64;
+            case Rule.Expression.Operation operation -> {
+                final int first = expressionWidth(operation.first(), widths);
+                final int second = expressionWidth(operation.second(), widths);
+                yield switch (operation.type()) {
+                    case ADD -> Math.min(64, Math.max(first, second) + 1);
+                    case MULTIPLY -> Math.min(64, first + second);
+                    case DIVIDE -> first;
+                    case MODULO -> Math.min(first, second);
+                    // Subtraction may go negative
+                    case SUBTRACT -> 64;
+                };
+            }
+        };
+    }
+
+    private static int stateWidth(String state, Map<String, Integer> widths) {
+        if (state.equals(Automata.CellRule.BLOCK_STATE.name())) return Automata.CellRule.BLOCK_STATE.bitSize();
+        return widths.getOrDefault(state, 64);
+    }
 }
@@ -22,7 +22,7 @@ public final class Scanner {
         record Number(long value) implements Token {
         }
 
-        record Offset(long x, long y) implements Token {
+        record Offset(long x, long y, long z) implements Token {
         }
 
         record Arrow() implements Token {
@@ -67,6 +67,9 @@ public final class Scanner {
         record Minus() implements Token {
         }
 
+        record Star() implements Token {
+        }
+
         record GreaterThan() implements Token {
         }
 
@@ -113,14 +116,18 @@ public final class Scanner {
         }
         if (c == '{') {
             skipWhitespace();
-            final long x = nextNumber();
+            final long x = nextSignedNumber();
+            skipWhitespace();
+            consume(',');
+            skipWhitespace();
+            final long y = nextSignedNumber();
             skipWhitespace();
             consume(',');
             skipWhitespace();
-            final long y = nextNumber();
+            final long z = nextSignedNumber();
             skipWhitespace();
             consume('}');
-            return new Token.Offset(x, y);
+            return new Token.Offset(x, y, z);
         }
         if (c == '-' && peek() == '>') {
             advance();
@@ -139,6 +146,7 @@ public final class Scanner {
         if (c == '=') return new Token.Equals();
         if (c == '+') return new Token.Plus();
         if (c == '-') return new Token.Minus();
+        if (c == '*') return new Token.Star();
         if (c == '>') return new Token.GreaterThan();
         if (c == '<') return new Token.LessThan();
 
@@ -151,6 +159,14 @@ public final class Scanner {
         return Long.parseLong(input.substring(startIndex, index));
     }
 
+    private long nextSignedNumber() {
+        if (peek() == '-') {
+            advance();
+            return -nextNumber();
+        }
+        return nextNumber();
+    }
+
     public List<Token> scanTokens() {
         List<Token> tokens = new ArrayList<>();
         Token token;
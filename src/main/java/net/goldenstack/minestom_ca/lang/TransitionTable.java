@@ -0,0 +1,225 @@
+package net.goldenstack.minestom_ca.lang;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongMaps;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
+import net.goldenstack.minestom_ca.Automata;
+import net.minestom.server.coordinate.Point;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Precomputed outcome of a program for every combination of its inputs.
+ * <p>
+ * Only built for programs whose conditions are range or set checks on self states and range checks on neighbor
+ * counts, and whose results write literals immediately. Self states are reduced to the intervals between the bounds
+ * the program compares them with, so wide states such as the block state stay cheap as long as few values are tested.
+ */
+final class TransitionTable {
+    /**
+     * Maximum number of entries, larger programs use the general evaluator.
+     */
+    static final int MAX_ENTRIES = 1 << 16;
+
+    // Self inputs: state index and the sorted lower bounds of its intervals, the first one being Long.MIN_VALUE
+    private final int[] selfIndexes;
+    private final long[][] selfBounds;
+    private final Ir.NeighborsCount[] counts;
+    private final int[] strides;
+    private final List<Automata.CellRule.Action>[] outcomes;
+
+    private TransitionTable(int[] selfIndexes, long[][] selfBounds, Ir.NeighborsCount[] counts,
+                            int[] strides, List<Automata.CellRule.Action>[] outcomes) {
+        this.selfIndexes = selfIndexes;
+        this.selfBounds = selfBounds;
+        this.counts = counts;
+        this.strides = strides;
+        this.outcomes = outcomes;
+    }
+
+    /**
+     * Gets the actions of the evaluated cell, null if no rule matches.
+     */
+    @Nullable List<Automata.CellRule.Action> process(Automata.Query query) {
+        int index = 0;
+        int input = 0;
+        for (int i = 0; i < selfIndexes.length; i++, input++) {
+            index += interval(selfBounds[i], query.state(selfIndexes[i])) * strides[input];
+        }
+        for (int i = 0; i < counts.length; i++, input++) {
+            index += (int) counts[i].evaluate(query, 0, 0, 0) * strides[input];
+        }
+        return outcomes[index];
+    }
+
+    private static int interval(long[] bounds, long value) {
+        // Bounds are few, a linear scan beats a binary search
+        int interval = 0;
+        while (interval + 1 < bounds.length && bounds[interval + 1] <= value) interval++;
+        return interval;
+    }
+
+    /**
+     * Builds the table of a program.
+     *
+     * @return the table, or null if the program has unsupported conditions or results, or too many input combinations
+     */
+    static @Nullable TransitionTable build(Ir.CompiledRule[] rules) {
+        Map<Integer, LongRBTreeSet> selfCuts = new TreeMap<>();
+        Map<Ir.NeighborsCount, Integer> countInputs = new LinkedHashMap<>();
+        for (Ir.CompiledRule rule : rules) {
+            // Delays may be random or depend on the current states
+            if (rule.delay() != null) return null;
+            if (!collectInputs(rule.condition(), selfCuts, countInputs)) return null;
+            for (Ir.Result result : rule.results()) {
+                if (!(result instanceof Ir.SetState(int _, Ir.Expression expression)) || !(expression instanceof Ir.Literal)) {
+                    return null;
+                }
+            }
+        }
+        final int inputCount = selfCuts.size() + countInputs.size();
+        final int[] selfIndexes = new int[selfCuts.size()];
+        final long[][] selfBounds = new long[selfCuts.size()][];
+        final int[] sizes = new int[inputCount];
+        int input = 0;
+        for (var entry : selfCuts.entrySet()) {
+            LongArrayList bounds = new LongArrayList();
+            bounds.add(Long.MIN_VALUE);
+            for (long cut : entry.getValue()) if (cut != Long.MIN_VALUE) bounds.add(cut);
+            selfIndexes[input] = entry.getKey();
+            selfBounds[input] = bounds.toLongArray();
+            sizes[input++] = bounds.size();
+        }
+        final Ir.NeighborsCount[] counts = countInputs.keySet().toArray(Ir.NeighborsCount[]::new);
+        for (Ir.NeighborsCount count : counts) sizes[input++] = count.offsets().length / 3 + 1;
+
+        final int[] strides = new int[inputCount];
+        long entries = 1;
+        for (int i = inputCount - 1; i >= 0; i--) {
+            strides[i] = (int) entries;
+            entries *= sizes[i];
+            if (entries > MAX_ENTRIES) return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Automata.CellRule.Action>[] outcomes = new List[(int) entries];
+        Map<Automata.CellRule.Action, List<Automata.CellRule.Action>> interned = new HashMap<>();
+        final long[] values = new long[inputCount];
+        for (int entry = 0; entry < entries; entry++) {
+            // Any value of an interval gives the same result, take its lower bound
+            for (int i = 0; i < inputCount; i++) {
+                final int position = entry / strides[i] % sizes[i];
+                values[i] = i < selfIndexes.length ? selfBounds[i][position] : position;
+            }
+            Int2LongMap block = null;
+            List<Point> wake = null;
+            for (Ir.CompiledRule rule : rules) {
+                if (!test(rule.condition(), values, selfIndexes, countInputs)) continue;
+                if (block == null) block = new Int2LongOpenHashMap();
+                wake = Ir.mergeWake(wake, rule.wake());
+                for (Ir.Result result : rule.results()) {
+                    final Ir.SetState set = (Ir.SetState) result;
+                    block.put(set.index(), ((Ir.Literal) set.expression()).value());
+                }
+            }
+            if (block == null) continue;
+            final Automata.CellRule.Action action = Automata.CellRule.Action.UpdateState(Int2LongMaps.unmodifiable(block))
+                    .withWakePoints(wake);
+            outcomes[entry] = interned.computeIfAbsent(action, List::of);
+        }
+        return new TransitionTable(selfIndexes, selfBounds, counts, strides, outcomes);
+    }
+
+    private static @Nullable Ir.NeighborsCount count(Ir.Expression expression) {
+        return switch (expression) {
+            case Ir.NeighborsCount count -> count;
+            case Ir.SharedCount shared -> shared.count();
+            default -> null;
+        };
+    }
+
+    private static boolean collectInputs(Ir.Condition condition, Map<Integer, LongRBTreeSet> selfCuts,
+                                         Map<Ir.NeighborsCount, Integer> countInputs) {
+        return switch (condition) {
+            case Ir.Constant _ -> true;
+            case Ir.And and -> {
+                for (Ir.Condition c : and.conditions()) {
+                    if (!collectInputs(c, selfCuts, countInputs)) yield false;
+                }
+                yield true;
+            }
+            case Ir.Not not -> collectInputs(not.condition(), selfCuts, countInputs);
+            case Ir.Range range -> {
+                if (range.expression() instanceof Ir.SelfState(int index)) {
+                    LongRBTreeSet cuts = selfCuts.computeIfAbsent(index, _ -> new LongRBTreeSet());
+                    cuts.add(range.min());
+                    if (range.max() != Long.MAX_VALUE) cuts.add(range.max() + 1);
+                    yield true;
+                }
+                final Ir.NeighborsCount count = count(range.expression());
+                if (count == null) yield false;
+                countInputs.putIfAbsent(count, countInputs.size());
+                yield true;
+            }
+            case Ir.Matches matches -> {
+                if (!(matches.expression() instanceof Ir.SelfState(int index))) yield false;
+                // Each run of matching values is an interval
+                LongRBTreeSet cuts = selfCuts.computeIfAbsent(index, _ -> new LongRBTreeSet());
+                final BitSet values = matches.values();
+                for (int start = values.nextSetBit(0); start >= 0; ) {
+                    final int end = values.nextClearBit(start);
+                    cuts.add(start);
+                    cuts.add(end);
+                    start = values.nextSetBit(end);
+                }
+                yield true;
+            }
+            case Ir.CountRange countRange -> {
+                countInputs.putIfAbsent(new Ir.NeighborsCount(countRange.offsets(), countRange.condition()), countInputs.size());
+                yield true;
+            }
+            case Ir.Equal _ -> false;
+        };
+    }
+
+    private static boolean test(Ir.Condition condition, long[] values, int[] selfIndexes,
+                                Map<Ir.NeighborsCount, Integer> countInputs) {
+        return switch (condition) {
+            case Ir.Constant constant -> constant.value();
+            case Ir.And and -> {
+                for (Ir.Condition c : and.conditions()) {
+                    if (!test(c, values, selfIndexes, countInputs)) yield false;
+                }
+                yield true;
+            }
+            case Ir.Not not -> !test(not.condition(), values, selfIndexes, countInputs);
+            case Ir.Range range -> {
+                final long value;
+                if (range.expression() instanceof Ir.SelfState(int index)) {
+                    value = values[indexOf(selfIndexes, index)];
+                } else {
+                    value = values[selfIndexes.length + countInputs.get(count(range.expression()))];
+                }
+                yield value >= range.min() && value <= range.max();
+            }
+            case Ir.Matches matches -> {
+                final long value = values[indexOf(selfIndexes, ((Ir.SelfState) matches.expression()).index())];
+                yield value >= 0 && value < Integer.MAX_VALUE && matches.values().get((int) value);
+            }
+            case Ir.CountRange countRange -> {
+                final Ir.NeighborsCount count = new Ir.NeighborsCount(countRange.offsets(), countRange.condition());
+                final long value = values[selfIndexes.length + countInputs.get(count)];
+                yield value >= countRange.min() && value <= countRange.max();
+            }
+            case Ir.Equal _ -> throw new IllegalStateException("Unsupported condition");
+        };
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) if (array[i] == value) return i;
+        throw new IllegalStateException("Unknown input " + value);
+    }
+}
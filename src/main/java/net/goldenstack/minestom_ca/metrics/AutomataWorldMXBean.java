@@ -0,0 +1,38 @@
+package net.goldenstack.minestom_ca.metrics;
+
+/**
+ * JMX view of an automata world.
+ * <p>
+ * Window values cover the last {@link WorldCounters#WINDOW} ticks.
+ */
+public interface AutomataWorldMXBean {
+    String getWorld();
+
+    long getTicks();
+
+    int getTrackedSections();
+
+    long getTrackedBlocks();
+
+    long getPendingTimers();
+
+    long getOffHeapBytes();
+
+    long getProcessedBlocksTotal();
+
+    long getModifiedBlocksTotal();
+
+    long getPacketsSentTotal();
+
+    long getProcessedBlocksWindow();
+
+    long getModifiedBlocksWindow();
+
+    long getPacketsSentWindow();
+
+    double getTickMillisP50();
+
+    double getTickMillisP99();
+
+    double getTickMillisMax();
+}
@@ -0,0 +1,126 @@
+package net.goldenstack.minestom_ca.metrics;
+
+import net.goldenstack.minestom_ca.Automata;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes the counters of a world as an MBean.
+ */
+public final class AutomataWorldMonitor implements AutomataWorldMXBean {
+    private final String name;
+    private final WorldCounters counters;
+    private final TickStatistics statistics;
+
+    public AutomataWorldMonitor(String name, Automata.World world) {
+        this.name = name;
+        this.counters = world.counters();
+        this.statistics = world.tickStatistics();
+    }
+
+    /**
+     * Registers the world in the platform MBean server under {@code net.goldenstack.minestom_ca:type=World,name=<name>}.
+     */
+    public static void register(String name, Automata.World world) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(new AutomataWorldMonitor(name, world), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register the MBean of world " + name, e);
+        }
+    }
+
+    public static void unregister(String name) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister the MBean of world " + name, e);
+        }
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("net.goldenstack.minestom_ca:type=World,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public String getWorld() {
+        return name;
+    }
+
+    @Override
+    public long getTicks() {
+        return counters.ticks();
+    }
+
+    @Override
+    public int getTrackedSections() {
+        return counters.trackedSections();
+    }
+
+    @Override
+    public long getTrackedBlocks() {
+        return counters.trackedBlocks();
+    }
+
+    @Override
+    public long getPendingTimers() {
+        return counters.pendingTimers();
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        return counters.offHeapBytes();
+    }
+
+    @Override
+    public long getProcessedBlocksTotal() {
+        return counters.processedBlocks();
+    }
+
+    @Override
+    public long getModifiedBlocksTotal() {
+        return counters.modifiedBlocks();
+    }
+
+    @Override
+    public long getPacketsSentTotal() {
+        return counters.packetsSent();
+    }
+
+    @Override
+    public long getProcessedBlocksWindow() {
+        return counters.windowProcessedBlocks();
+    }
+
+    @Override
+    public long getModifiedBlocksWindow() {
+        return counters.windowModifiedBlocks();
+    }
+
+    @Override
+    public long getPacketsSentWindow() {
+        return counters.windowPacketsSent();
+    }
+
+    @Override
+    public double getTickMillisP50() {
+        return statistics.total().percentile(50) / 1.0e6;
+    }
+
+    @Override
+    public double getTickMillisP99() {
+        return statistics.total().percentile(99) / 1.0e6;
+    }
+
+    @Override
+    public double getTickMillisMax() {
+        return statistics.total().max() / 1.0e6;
+    }
+}
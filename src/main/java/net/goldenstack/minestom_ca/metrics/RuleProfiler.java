@@ -0,0 +1,165 @@
+package net.goldenstack.minestom_ca.metrics;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.instance.block.Block;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-rule evaluation statistics.
+ * <p>
+ * Profiling is opt-in: rules are only instrumented once wrapped with {@link Automata.CellRule#profiled(RuleProfiler, String)},
+ * the original rules are left untouched and run without any overhead.
+ */
+public final class RuleProfiler {
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Counters of a single rule, safe to record from several worlds ticking at once.
+     */
+    public static final class Entry {
+        private final String name;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder actions = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records one evaluation of the rule.
+         *
+         * @param nanos   the time spent evaluating
+         * @param matched whether the rule matched
+         * @param actions the number of actions emitted, a matching rule may share an action or emit none
+         */
+        public void record(long nanos, boolean matched, int actions) {
+            this.evaluations.increment();
+            this.nanos.add(nanos);
+            if (matched) this.matches.increment();
+            if (actions > 0) this.actions.add(actions);
+        }
+
+        void reset() {
+            evaluations.reset();
+            matches.reset();
+            actions.reset();
+            nanos.reset();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long evaluations() {
+            return evaluations.sum();
+        }
+
+        public long matches() {
+            return matches.sum();
+        }
+
+        public long actions() {
+            return actions.sum();
+        }
+
+        public long nanos() {
+            return nanos.sum();
+        }
+    }
+
+    public synchronized Entry entry(String name) {
+        return entries.computeIfAbsent(name, Entry::new);
+    }
+
+    public synchronized List<Entry> entries() {
+        return List.copyOf(entries.values());
+    }
+
+    /**
+     * Gets the entries sorted by time spent, most expensive first.
+     */
+    public List<Entry> hottest(int limit) {
+        return entries().stream()
+                .sorted(Comparator.comparingLong(Entry::nanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public synchronized void reset() {
+        for (Entry entry : entries.values()) entry.reset();
+    }
+
+    public String toCsv() {
+        StringBuilder builder = new StringBuilder("name,evaluations,matches,actions,nanos\n");
+        for (Entry entry : entries()) {
+            builder.append('"').append(entry.name().replace("\"", "\"\"")).append('"')
+                    .append(',').append(entry.evaluations())
+                    .append(',').append(entry.matches())
+                    .append(',').append(entry.actions())
+                    .append(',').append(entry.nanos())
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    public void exportCsv(Path path) throws IOException {
+        Files.writeString(path, toCsv());
+    }
+
+    /**
+     * Wraps a rule so that each of its evaluations is recorded as a whole.
+     */
+    public Automata.CellRule wrap(String name, Automata.CellRule rule) {
+        final Entry entry = entry(name);
+        return new Automata.CellRule() {
+            @Override
+            public void init(Map<State, Integer> mapping) {
+                rule.init(mapping);
+            }
+
+            @Override
+            public List<Action> process(Automata.Query query) {
+                final long start = System.nanoTime();
+                final List<Action> actions = rule.process(query);
+                entry.record(System.nanoTime() - start, actions != null, actions != null ? actions.size() : 0);
+                return actions;
+            }
+
+            @Override
+            public boolean tracked(Block block) {
+                return rule.tracked(block);
+            }
+
+            @Override
+            public boolean randomTicked(Block block) {
+                return rule.randomTicked(block);
+            }
+
+            @Override
+            public List<Action> randomTick(Automata.Query query) {
+                final long start = System.nanoTime();
+                final List<Action> actions = rule.randomTick(query);
+                entry.record(System.nanoTime() - start, actions != null, actions != null ? actions.size() : 0);
+                return actions;
+            }
+
+            @Override
+            public List<Point> wakePoints() {
+                return rule.wakePoints();
+            }
+
+            @Override
+            public Set<State> states() {
+                return rule.states();
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package net.goldenstack.minestom_ca.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Activity counters of a single section over a sliding window of {@link #BUCKETS} buckets of {@link #BUCKET_TICKS} ticks.
+ * <p>
+ * Buckets are addressed by epoch ({@code tick / BUCKET_TICKS}), stale buckets are only cleared when the section is
+ * touched again so idle sections cost nothing.
+ */
+public final class SectionActivity {
+    public static final int BUCKETS = 8;
+    public static final int BUCKET_TICKS = TickStatistics.WINDOW / BUCKETS;
+
+    private final long[] ticksActive = new long[BUCKETS];
+    private final long[] cellsProcessed = new long[BUCKETS];
+    private final long[] writes = new long[BUCKETS];
+    private final long[] wakes = new long[BUCKETS];
+    private final long[] timers = new long[BUCKETS];
+    private long epoch = 0;
+
+    public record Snapshot(long ticksActive, long cellsProcessed, long writes, long wakes, long timers) {
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0);
+
+        public Snapshot add(Snapshot other) {
+            return new Snapshot(ticksActive + other.ticksActive, cellsProcessed + other.cellsProcessed,
+                    writes + other.writes, wakes + other.wakes, timers + other.timers);
+        }
+
+        /**
+         * Gets a single value to rank sections by, dominated by the number of evaluated cells.
+         */
+        public long heat() {
+            return cellsProcessed + writes + wakes + timers;
+        }
+    }
+
+    public void recordProcessed(long epoch, int cells) {
+        final int bucket = roll(epoch);
+        ticksActive[bucket]++;
+        cellsProcessed[bucket] += cells;
+    }
+
+    public void recordWrite(long epoch) {
+        writes[roll(epoch)]++;
+    }
+
+    public void recordWakes(long epoch, int count) {
+        wakes[roll(epoch)] += count;
+    }
+
+    public void recordTimer(long epoch) {
+        timers[roll(epoch)]++;
+    }
+
+    public Snapshot snapshot(long epoch) {
+        roll(epoch);
+        return new Snapshot(sum(ticksActive), sum(cellsProcessed), sum(writes), sum(wakes), sum(timers));
+    }
+
+    private int roll(long epoch) {
+        final long elapsed = epoch - this.epoch;
+        if (elapsed > 0) {
+            if (elapsed >= BUCKETS) {
+                clear(0, BUCKETS);
+            } else {
+                for (long e = this.epoch + 1; e <= epoch; e++) clear((int) (e % BUCKETS), (int) (e % BUCKETS) + 1);
+            }
+            this.epoch = epoch;
+        }
+        return (int) (this.epoch % BUCKETS);
+    }
+
+    private void clear(int from, int to) {
+        Arrays.fill(ticksActive, from, to, 0);
+        Arrays.fill(cellsProcessed, from, to, 0);
+        Arrays.fill(writes, from, to, 0);
+        Arrays.fill(wakes, from, to, 0);
+        Arrays.fill(timers, from, to, 0);
+    }
+
+    private static long sum(long[] buckets) {
+        long sum = 0;
+        for (long value : buckets) sum += value;
+        return sum;
+    }
+}
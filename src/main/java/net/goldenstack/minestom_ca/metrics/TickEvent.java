@@ -0,0 +1,68 @@
+package net.goldenstack.minestom_ca.metrics;
+
+import jdk.jfr.*;
+import net.goldenstack.minestom_ca.Automata;
+
+/**
+ * JDK Flight Recorder event covering a single tick of an automata world.
+ */
+@Name("net.goldenstack.minestom_ca.Tick")
+@Label("Automata Tick")
+@Category({"Minestom", "Automata"})
+@Description("A tick of an automata world, split by phase")
+@StackTrace(false)
+public final class TickEvent extends Event {
+    @Label("World")
+    String world;
+
+    @Label("Processed Sections")
+    int processedSections;
+
+    @Label("Processed Blocks")
+    int processedBlocks;
+
+    @Label("Modified Blocks")
+    int modifiedBlocks;
+
+    @Label("Deferred Sections")
+    int deferredSections;
+
+    @Label("Compute")
+    @Timespan
+    long compute;
+
+    @Label("Timed Changes")
+    @Timespan
+    long timed;
+
+    @Label("Apply")
+    @Timespan
+    long apply;
+
+    @Label("Register")
+    @Timespan
+    long register;
+
+    @Label("Network")
+    @Timespan
+    long network;
+
+    /**
+     * Ends the event started with {@link #begin()} and commits it if it is enabled.
+     */
+    public void complete(String world, Automata.Metrics metrics, long[] phaseNanos) {
+        end();
+        if (!shouldCommit()) return;
+        this.world = world;
+        this.processedSections = metrics.processedSections();
+        this.processedBlocks = metrics.processedBlocks();
+        this.modifiedBlocks = metrics.modifiedBlocks();
+        this.deferredSections = metrics.deferredSections();
+        this.compute = phaseNanos[TickPhase.COMPUTE.ordinal()];
+        this.timed = phaseNanos[TickPhase.TIMED.ordinal()];
+        this.apply = phaseNanos[TickPhase.APPLY.ordinal()];
+        this.register = phaseNanos[TickPhase.REGISTER.ordinal()];
+        this.network = phaseNanos[TickPhase.NETWORK.ordinal()];
+        commit();
+    }
+}
@@ -0,0 +1,51 @@
+package net.goldenstack.minestom_ca.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent durations in a ring buffer to compute percentiles over a sliding window.
+ */
+public final class TickHistogram {
+    private final long[] samples;
+    private int index = 0;
+    private int count = 0;
+
+    public TickHistogram(int window) {
+        if (window < 1) throw new IllegalArgumentException("Window must be positive");
+        this.samples = new long[window];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[index] = nanos;
+        index = (index + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    /**
+     * Gets a percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        final long[] sorted;
+        synchronized (this) {
+            if (count == 0) return 0;
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, rank)];
+    }
+
+    public synchronized long max() {
+        long max = 0;
+        for (int i = 0; i < count; i++) max = Math.max(max, samples[i]);
+        return max;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+}
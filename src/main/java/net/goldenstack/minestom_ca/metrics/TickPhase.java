@@ -0,0 +1,19 @@
+package net.goldenstack.minestom_ca.metrics;
+
+/**
+ * The phases of an automata tick, in execution order.
+ */
+public enum TickPhase {
+    // Evaluating the rules of tracked blocks
+    COMPUTE,
+    // Merging the changes scheduled in the timer wheel
+    TIMED,
+    // Writing the changes to the world
+    APPLY,
+    // Registering the wake points of the applied changes
+    REGISTER,
+    // Building and sending packets, chunk invalidation and relighting
+    NETWORK;
+
+    public static final TickPhase[] VALUES = values();
+}
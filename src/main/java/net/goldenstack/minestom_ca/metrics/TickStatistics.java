@@ -0,0 +1,35 @@
+package net.goldenstack.minestom_ca.metrics;
+
+/**
+ * Tick durations of a world, overall and per phase, over the last {@link #WINDOW} ticks.
+ */
+public final class TickStatistics {
+    // One minute at 20 ticks per second
+    public static final int WINDOW = 1200;
+
+    private final TickHistogram total = new TickHistogram(WINDOW);
+    private final TickHistogram[] phases = new TickHistogram[TickPhase.VALUES.length];
+
+    public TickStatistics() {
+        for (int i = 0; i < phases.length; i++) phases[i] = new TickHistogram(WINDOW);
+    }
+
+    /**
+     * Records a tick.
+     *
+     * @param totalNanos the duration of the whole tick
+     * @param phaseNanos the time spent in each phase, indexed by {@link TickPhase#ordinal()}
+     */
+    public void record(long totalNanos, long[] phaseNanos) {
+        total.record(totalNanos);
+        for (int i = 0; i < phases.length; i++) phases[i].record(phaseNanos[i]);
+    }
+
+    public TickHistogram total() {
+        return total;
+    }
+
+    public TickHistogram phase(TickPhase phase) {
+        return phases[phase.ordinal()];
+    }
+}
@@ -0,0 +1,110 @@
+package net.goldenstack.minestom_ca.metrics;
+
+import net.goldenstack.minestom_ca.Automata;
+
+/**
+ * Live counters of a world, cumulative since creation and summed over the last {@link #WINDOW} ticks.
+ * <p>
+ * Written by the ticking thread once per tick and safe to read from any thread.
+ */
+public final class WorldCounters {
+    public static final int WINDOW = TickStatistics.WINDOW;
+
+    private final long[] processedBlocksWindow = new long[WINDOW];
+    private final long[] modifiedBlocksWindow = new long[WINDOW];
+    private final long[] packetsWindow = new long[WINDOW];
+    private int windowIndex = 0;
+    private int windowCount = 0;
+
+    private long ticks;
+    private long processedBlocks;
+    private long modifiedBlocks;
+    private long packetsSent;
+
+    private int trackedSections;
+    private long trackedBlocks;
+    private long pendingTimers;
+    private long offHeapBytes;
+
+    /**
+     * Records the work done by a tick.
+     */
+    public synchronized void recordTick(Automata.Metrics metrics, int packets) {
+        ticks++;
+        processedBlocks += metrics.processedBlocks();
+        modifiedBlocks += metrics.modifiedBlocks();
+        packetsSent += packets;
+        processedBlocksWindow[windowIndex] = metrics.processedBlocks();
+        modifiedBlocksWindow[windowIndex] = metrics.modifiedBlocks();
+        packetsWindow[windowIndex] = packets;
+        windowIndex = (windowIndex + 1) % WINDOW;
+        if (windowCount < WINDOW) windowCount++;
+    }
+
+    /**
+     * Updates the current size of the world.
+     */
+    public synchronized void updateGauges(int trackedSections, long trackedBlocks, long pendingTimers, long offHeapBytes) {
+        this.trackedSections = trackedSections;
+        this.trackedBlocks = trackedBlocks;
+        this.pendingTimers = pendingTimers;
+        this.offHeapBytes = offHeapBytes;
+    }
+
+    public synchronized long ticks() {
+        return ticks;
+    }
+
+    public synchronized long processedBlocks() {
+        return processedBlocks;
+    }
+
+    public synchronized long modifiedBlocks() {
+        return modifiedBlocks;
+    }
+
+    public synchronized long packetsSent() {
+        return packetsSent;
+    }
+
+    public synchronized long windowProcessedBlocks() {
+        return sum(processedBlocksWindow);
+    }
+
+    public synchronized long windowModifiedBlocks() {
+        return sum(modifiedBlocksWindow);
+    }
+
+    public synchronized long windowPacketsSent() {
+        return sum(packetsWindow);
+    }
+
+    /**
+     * Gets the number of ticks covered by the window counters, lower than {@link #WINDOW} right after creation.
+     */
+    public synchronized int windowTicks() {
+        return windowCount;
+    }
+
+    public synchronized int trackedSections() {
+        return trackedSections;
+    }
+
+    public synchronized long trackedBlocks() {
+        return trackedBlocks;
+    }
+
+    public synchronized long pendingTimers() {
+        return pendingTimers;
+    }
+
+    public synchronized long offHeapBytes() {
+        return offHeapBytes;
+    }
+
+    private long sum(long[] window) {
+        long sum = 0;
+        for (int i = 0; i < windowCount; i++) sum += window[i];
+        return sum;
+    }
+}
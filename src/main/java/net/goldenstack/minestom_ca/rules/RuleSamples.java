@@ -48,13 +48,14 @@ public final class RuleSamples {
         }
     }
 
+    /**
+     * Turns dirt into grass on random ticks, dirt is never tracked.
+     */
     public static final class GrassGrow implements CellRule {
         private static final long DIRT_STATE = Block.DIRT.stateId();
         private static final long GRASS_STATE = Block.GRASS_BLOCK.stateId();
 
-        private static final List<Action> GROW_ACTION = List.of(
-                Action.ConditionalSchedule(25, CellRule.stateMap(0, DIRT_STATE), CellRule.stateMap(0, GRASS_STATE))
-        );
+        private static final List<Action> GROW_ACTION = List.of(Action.UpdateState(CellRule.stateMap(0, GRASS_STATE)));
 
         @Override
         public void init(Map<State, Integer> mapping) {
@@ -62,12 +63,21 @@ public final class RuleSamples {
 
         @Override
         public List<Action> process(Query query) {
-            final long currentState = query.state(0);
-            return currentState == DIRT_STATE ? GROW_ACTION : null;
+            return null;
+        }
+
+        @Override
+        public List<Action> randomTick(Query query) {
+            return query.state(0) == DIRT_STATE ? GROW_ACTION : null;
         }
 
         @Override
         public boolean tracked(Block block) {
+            return false;
+        }
+
+        @Override
+        public boolean randomTicked(Block block) {
             return block.stateId() == DIRT_STATE;
         }
 
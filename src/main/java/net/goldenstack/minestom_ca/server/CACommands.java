@@ -2,6 +2,9 @@ package net.goldenstack.minestom_ca.server;
 
 import net.goldenstack.minestom_ca.Automata;
 import net.goldenstack.minestom_ca.AutomataImpl;
+import net.goldenstack.minestom_ca.backends.lazy.LazyWorld;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
+import net.goldenstack.minestom_ca.metrics.SectionActivity;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.minestom.server.command.CommandSender;
@@ -13,12 +16,60 @@ import net.minestom.server.command.builder.suggestion.SuggestionEntry;
 import net.minestom.server.entity.Player;
 import net.minestom.server.item.ItemStack;
 import net.minestom.server.tag.Tag;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static net.minestom.server.command.builder.arguments.ArgumentType.*;
 
 public final class CACommands {
+    /**
+     * The directory receiving exported files, names given to the commands are resolved against it.
+     */
+    public static final Path EXPORT_DIRECTORY = Path.of("exports");
+
+    /**
+     * The permission level needed to export files, above the level given to every player.
+     */
+    public static final int EXPORT_PERMISSION_LEVEL = 4;
+
+    /**
+     * The permission level needed to fast-forward, which blocks the ticking thread while simulating.
+     */
+    public static final int FAST_FORWARD_PERMISSION_LEVEL = 4;
+
+    /**
+     * The largest number of generations a single fast-forward may simulate.
+     */
+    public static final int MAX_FAST_FORWARD_GENERATIONS = 10_000;
+
+    /**
+     * The time after which a fast-forward stops starting new generations.
+     */
+    public static final long FAST_FORWARD_TIME_LIMIT = TimeUnit.SECONDS.toNanos(5);
+
+    private static boolean canExport(CommandSender sender, @Nullable String commandString) {
+        return sender instanceof Player player && player.getPermissionLevel() >= EXPORT_PERMISSION_LEVEL;
+    }
+
+    private static boolean canFastForward(CommandSender sender, @Nullable String commandString) {
+        return sender instanceof Player player && player.getPermissionLevel() >= FAST_FORWARD_PERMISSION_LEVEL;
+    }
+
+    /**
+     * Resolves the name of an exported file, null if it would leave {@link #EXPORT_DIRECTORY}.
+     */
+    static @Nullable Path exportPath(String name) {
+        final Path directory = EXPORT_DIRECTORY.toAbsolutePath().normalize();
+        final Path path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory) || path.equals(directory)) return null;
+        return path;
+    }
 
     /**
      * A command that starts running CA rules.
@@ -115,4 +166,206 @@ public final class CACommands {
             }
         }
     }
+
+    /**
+     * A command that simulates a number of generations without networking.
+     */
+    public static final class FastForward extends Command {
+        public FastForward() {
+            super("fastforward");
+            setCondition(CACommands::canFastForward);
+            var generations = Integer("generations").between(1, MAX_FAST_FORWARD_GENERATIONS);
+            setDefaultExecutor((sender, context) ->
+                    sender.sendMessage(Component.text("Usage: /fastforward <generations>").color(NamedTextColor.RED)));
+            addSyntax((sender, context) -> {
+                Player player = (Player) sender;
+                if (!(Automata.World.get(player.getInstance()) instanceof LazyWorld world)) {
+                    player.sendMessage(Component.text("No lazy automata world found in this instance.").color(NamedTextColor.RED));
+                    return;
+                }
+                final LazyWorld.FastForward result =
+                        world.fastForward(context.get(generations), FAST_FORWARD_TIME_LIMIT);
+                player.sendMessage(Component.text(String.format("Simulated %d generations in %.2fms (%.0f gen/s, %.0f cells/s)",
+                        result.generations(), result.nanos() / 1.0e6,
+                        result.generationsPerSecond(), result.cellsPerSecond())).color(NamedTextColor.GREEN));
+            }, generations);
+        }
+    }
+
+    /**
+     * A command that profiles the rules of the current automata world.
+     */
+    public static final class Profile extends Command {
+        public Profile() {
+            super("caprofile");
+            setCondition(Conditions::playerOnly);
+            setDefaultExecutor((sender, context) -> sender.sendMessage(
+                    Component.text("Usage: /caprofile <start|stop|reset|show [limit]|export <file>>").color(NamedTextColor.RED)));
+
+            addSyntax((sender, context) -> {
+                final Automata.World world = world(sender);
+                if (world == null) return;
+                world.setProfiler(new RuleProfiler());
+                sender.sendMessage(Component.text("Rule profiling started").color(NamedTextColor.GREEN));
+            }, Literal("start"));
+
+            addSyntax((sender, context) -> {
+                final Automata.World world = world(sender);
+                if (world == null) return;
+                world.setProfiler(null);
+                sender.sendMessage(Component.text("Rule profiling stopped").color(NamedTextColor.GREEN));
+            }, Literal("stop"));
+
+            addSyntax((sender, context) -> {
+                final RuleProfiler profiler = profiler(sender);
+                if (profiler == null) return;
+                profiler.reset();
+                sender.sendMessage(Component.text("Rule profiling reset").color(NamedTextColor.GREEN));
+            }, Literal("reset"));
+
+            var limit = Integer("limit").min(1).setDefaultValue(10);
+            addSyntax((sender, context) -> {
+                final RuleProfiler profiler = profiler(sender);
+                if (profiler == null) return;
+                sender.sendMessage(Component.text("Hottest rules:").color(NamedTextColor.GOLD));
+                for (RuleProfiler.Entry entry : profiler.hottest(context.get(limit))) {
+                    final long average = entry.evaluations() > 0 ? entry.nanos() / entry.evaluations() : 0;
+                    sender.sendMessage(Component.text(String.format(" • %s: %d evals, %d matches, %d actions, %.2fms (%dns/eval)",
+                            entry.name(), entry.evaluations(), entry.matches(), entry.actions(),
+                            entry.nanos() / 1.0e6, average)).color(NamedTextColor.WHITE));
+                }
+            }, Literal("show"), limit);
+
+            var file = Word("file");
+            addConditionalSyntax(CACommands::canExport, (sender, context) -> {
+                final RuleProfiler profiler = profiler(sender);
+                if (profiler == null) return;
+                final Path path = exportPath(context.get(file));
+                if (path == null) {
+                    sender.sendMessage(Component.text("Invalid file name").color(NamedTextColor.RED));
+                    return;
+                }
+                try {
+                    Files.createDirectories(path.getParent());
+                    profiler.exportCsv(path);
+                    sender.sendMessage(Component.text("Rule profile exported to " + path.toAbsolutePath()).color(NamedTextColor.GREEN));
+                } catch (IOException e) {
+                    sender.sendMessage(Component.text("Failed to export: " + e.getMessage()).color(NamedTextColor.RED));
+                }
+            }, Literal("export"), file);
+        }
+
+        private static Automata.World world(CommandSender sender) {
+            final Automata.World world = Automata.World.get(((Player) sender).getInstance());
+            if (world == null) {
+                sender.sendMessage(Component.text("No automata world found in this instance.").color(NamedTextColor.RED));
+            }
+            return world;
+        }
+
+        private static RuleProfiler profiler(CommandSender sender) {
+            final Automata.World world = world(sender);
+            if (world == null) return null;
+            final RuleProfiler profiler = world.profiler();
+            if (profiler == null) {
+                sender.sendMessage(Component.text("Rule profiling is not running, use /caprofile start").color(NamedTextColor.RED));
+            }
+            return profiler;
+        }
+    }
+
+    /**
+     * A command that reports the sections of the current lazy automata world doing the most work.
+     */
+    public static final class Heatmap extends Command {
+        public Heatmap() {
+            super("caheat");
+            setCondition(Conditions::playerOnly);
+
+            var limit = Integer("limit").min(1).setDefaultValue(10);
+            setDefaultExecutor((sender, context) -> show(sender, 10));
+            addSyntax((sender, context) -> show(sender, context.get(limit)), limit);
+
+            var file = Word("file");
+            addConditionalSyntax(CACommands::canExport, (sender, context) -> {
+                final LazyWorld world = world(sender);
+                if (world == null) return;
+                final Path path = exportPath(context.get(file));
+                if (path == null) {
+                    sender.sendMessage(Component.text("Invalid file name").color(NamedTextColor.RED));
+                    return;
+                }
+                try {
+                    Files.createDirectories(path.getParent());
+                    world.exportHeatmap(path);
+                    sender.sendMessage(Component.text("Heatmap exported to " + path.toAbsolutePath()).color(NamedTextColor.GREEN));
+                } catch (IOException e) {
+                    sender.sendMessage(Component.text("Failed to export: " + e.getMessage()).color(NamedTextColor.RED));
+                }
+            }, Literal("export"), file);
+        }
+
+        private static void show(CommandSender sender, int limit) {
+            final LazyWorld world = world(sender);
+            if (world == null) return;
+            final List<LazyWorld.SectionReport> reports = world.hottestSections(limit);
+            if (reports.isEmpty()) {
+                sender.sendMessage(Component.text("No recent activity").color(NamedTextColor.GRAY));
+                return;
+            }
+            sender.sendMessage(Component.text("Hottest sections:").color(NamedTextColor.GOLD));
+            for (LazyWorld.SectionReport report : reports) {
+                final SectionActivity.Snapshot activity = report.activity();
+                sender.sendMessage(Component.text(String.format(" • %d,%d,%d: %d ticks, %d cells, %d writes, %d wakes, %d timers",
+                        report.sectionX(), report.sectionY(), report.sectionZ(), activity.ticksActive(),
+                        activity.cellsProcessed(), activity.writes(), activity.wakes(), activity.timers()))
+                        .color(NamedTextColor.WHITE));
+            }
+        }
+
+        private static LazyWorld world(CommandSender sender) {
+            if (!(Automata.World.get(((Player) sender).getInstance()) instanceof LazyWorld world)) {
+                sender.sendMessage(Component.text("No lazy automata world found in this instance.").color(NamedTextColor.RED));
+                return null;
+            }
+            return world;
+        }
+    }
+
+    /**
+     * A command that lists and resumes the regions limited by the growth policy of the current lazy automata world.
+     */
+    public static final class Regions extends Command {
+        public Regions() {
+            super("caregions");
+            setCondition(Conditions::playerOnly);
+
+            setDefaultExecutor((sender, context) -> {
+                final LazyWorld world = Heatmap.world(sender);
+                if (world == null) return;
+                final List<LazyWorld.LimitedRegion> regions = world.limitedRegions();
+                if (regions.isEmpty()) {
+                    sender.sendMessage(Component.text("No limited regions").color(NamedTextColor.GRAY));
+                    return;
+                }
+                sender.sendMessage(Component.text("Limited regions:").color(NamedTextColor.GOLD));
+                for (LazyWorld.LimitedRegion region : regions) {
+                    sender.sendMessage(Component.text(String.format(" • %d,%d: %s (+%d tracked blocks)",
+                            region.chunkX(), region.chunkZ(), region.response(), region.growth())).color(NamedTextColor.WHITE));
+                }
+            });
+
+            var chunkX = Integer("chunkX");
+            var chunkZ = Integer("chunkZ");
+            addSyntax((sender, context) -> {
+                final LazyWorld world = Heatmap.world(sender);
+                if (world == null) return;
+                if (world.resumeRegion(context.get(chunkX), context.get(chunkZ))) {
+                    sender.sendMessage(Component.text("Region resumed").color(NamedTextColor.GREEN));
+                } else {
+                    sender.sendMessage(Component.text("This region is not limited").color(NamedTextColor.RED));
+                }
+            }, Literal("resume"), chunkX, chunkZ);
+        }
+    }
 }
@@ -3,6 +3,7 @@ package net.goldenstack.minestom_ca.server;
 import net.goldenstack.minestom_ca.Automata;
 import net.goldenstack.minestom_ca.AutomataImpl;
 import net.goldenstack.minestom_ca.backends.lazy.LazyWorld;
+import net.goldenstack.minestom_ca.lang.ProgramCache;
 import net.goldenstack.minestom_ca.rules.BlockPusher;
 import net.goldenstack.minestom_ca.rules.RuleSamples;
 import net.kyori.adventure.text.Component;
@@ -19,6 +20,9 @@ import net.minestom.server.inventory.PlayerInventory;
 import net.minestom.server.item.ItemStack;
 import net.minestom.server.item.Material;
 
+import java.nio.file.Path;
+import java.util.Arrays;
+
 public final class Main {
     public static void main(String[] args) {
         MinecraftServer minecraftServer = MinecraftServer.init();
@@ -28,7 +32,11 @@ public final class Main {
                 new CACommands.Start(),
                 new CACommands.Stop(),
                 new CACommands.State(),
-                new CACommands.ListStates()
+                new CACommands.ListStates(),
+                new CACommands.FastForward(),
+                new CACommands.Profile(),
+                new CACommands.Heatmap(),
+                new CACommands.Regions()
         );
 
         // Create an instance
@@ -44,11 +52,13 @@ public final class Main {
         }
         System.out.println("Chunks loaded: " + instance.getChunks().size());
 
-        final Automata.CellRule rules = Automata.CellRule.rules(
-                new RuleSamples.GrassGrow(),
-                new BlockPusher()
-        );
-        //final CellRule rules = Program.fromFile(Path.of("rules/piston")).makeCellRule();
+        // Rule files given as arguments replace the samples, parsed programs are cached across restarts
+        final Automata.CellRule rules = args.length > 0 ?
+                new ProgramCache(Path.of("cache")).load(Arrays.stream(args).map(Path::of).toList()).makeCellRule() :
+                Automata.CellRule.rules(
+                        new RuleSamples.GrassGrow(),
+                        new BlockPusher()
+                );
 
         // Print variables
         System.out.println("Variables: " + rules.states().stream()
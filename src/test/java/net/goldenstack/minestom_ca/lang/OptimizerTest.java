@@ -0,0 +1,274 @@
+package net.goldenstack.minestom_ca.lang;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks each rewrite of the optimizer, and that optimized rules evaluate like the plain lowered ones.
+ * <p>
+ * In the same package as the compiler, whose classes are internal.
+ */
+public final class OptimizerTest {
+    private static final long[] BLOCKS = {Block.AIR.stateId(), Block.STONE.stateId(), Block.DIRT.stateId()};
+
+    @Test
+    public void constantFolding() {
+        final Compiled compiled = compile(Program.fromString("""
+                charge: 3
+                #dirt & [!9]moore2d@#stone -> charge=1+2
+                #stone & [>8]moore2d@#dirt -> #dirt
+                """));
+        final Ir.CompiledRule[] rules = compiled.optimized().rules();
+        // Counts can never reach 9 out of 8 cells
+        assertEquals(new Ir.Range(new Ir.SelfState(0), Block.DIRT.stateId(), Block.DIRT.stateId()), rules[0].condition());
+        assertEquals(new Ir.SetState(compiled.index("charge"), new Ir.Literal(3)), rules[0].results()[0]);
+        assertEquals(Ir.Constant.FALSE, rules[1].condition());
+        compiled.compareRandom(Neighbors.MOORE_2D, 500);
+    }
+
+    @Test
+    public void countRanges() {
+        final Compiled compiled = compile(Program.fromString("""
+                #air & [>2]moore3d@#stone -> #glass
+                #stone & [<3]moore3d@#dirt -> #dirt
+                """));
+        final Ir.CompiledRule[] rules = compiled.optimized().rules();
+        assertEquals(new Ir.CountRange(offsets(Neighbors.MOORE_3D), blockRange(Block.STONE), 3, Long.MAX_VALUE),
+                ((Ir.And) rules[0].condition()).conditions()[1]);
+        assertEquals(new Ir.CountRange(offsets(Neighbors.MOORE_3D), blockRange(Block.DIRT), Long.MIN_VALUE, 2),
+                ((Ir.And) rules[1].condition()).conditions()[1]);
+        compiled.compareRandom(Neighbors.MOORE_3D, 1000);
+
+        // Surrounded by stone, the count stops once three are seen
+        CellQuery query = new CellQuery(compiled.indexCount());
+        query.set(Neighbors.SELF, 0, Block.AIR.stateId());
+        for (Point point : Neighbors.MOORE_3D) query.set(point, 0, Block.STONE.stateId());
+        compiled.compare(query);
+        query.reads = 0;
+        evaluate(compiled.optimized().rules(), compiled.optimized().cache(), query);
+        assertEquals(3, query.reads);
+        query.reads = 0;
+        evaluate(compiled.lowered(), null, query);
+        assertEquals(Neighbors.MOORE_3D.size(), query.reads);
+    }
+
+    @Test
+    public void notOfRange() {
+        final Program program = new Program(List.of(
+                // !(charge > 2)
+                new Rule(new Rule.Condition.Not(new Rule.Condition.Equal(
+                        new Rule.Expression.Compare(new Rule.Expression.State("charge"), new Rule.Expression.Literal(2)),
+                        new Rule.Expression.Literal(1))),
+                        new Rule.Result.SetState(new Rule.Expression.Literal(Block.GLASS))),
+                // !(charge < 2)
+                new Rule(new Rule.Condition.Not(new Rule.Condition.Equal(
+                        new Rule.Expression.Compare(new Rule.Expression.State("charge"), new Rule.Expression.Literal(2)),
+                        new Rule.Expression.Literal(-1))),
+                        new Rule.Result.SetState("charge", new Rule.Expression.Literal(0)))
+        ), Set.of(new Automata.CellRule.State("charge", 3)));
+        final Compiled compiled = compile(program);
+        final int charge = compiled.index("charge");
+        final Ir.CompiledRule[] rules = compiled.optimized().rules();
+        assertEquals(new Ir.Range(new Ir.SelfState(charge), Long.MIN_VALUE, 2), rules[0].condition());
+        assertEquals(new Ir.Range(new Ir.SelfState(charge), 2, Long.MAX_VALUE), rules[1].condition());
+        compiled.compareRandom(List.of(), 200);
+    }
+
+    @Test
+    public void andOrderedByCost() {
+        final Compiled compiled = compile(Program.fromString("""
+                charge: 3
+                [3]moore3d@#stone & #air & charge=1 -> #glass
+                """));
+        final Ir.Condition[] conditions = ((Ir.And) compiled.optimized().rules()[0].condition()).conditions();
+        assertInstanceOf(Ir.Range.class, conditions[0]);
+        assertInstanceOf(Ir.Range.class, conditions[1]);
+        assertInstanceOf(Ir.CountRange.class, conditions[2]);
+        compiled.compareRandom(Neighbors.MOORE_3D, 500);
+
+        // The neighbors are never read when the cell itself does not match
+        CellQuery query = new CellQuery(compiled.indexCount());
+        query.set(Neighbors.SELF, 0, Block.STONE.stateId());
+        evaluate(compiled.optimized().rules(), compiled.optimized().cache(), query);
+        assertEquals(0, query.reads);
+    }
+
+    @Test
+    public void sharedCounts() {
+        final Compiled compiled = compile(Program.fromString("""
+                #stone & [>1]moore3d@#dirt & [<5]moore3d@#dirt -> #dirt
+                #dirt & [2]moore3d@#dirt -> #gravel
+                """));
+        final Optimizer.Optimized optimized = compiled.optimized();
+        assertNotNull(optimized.cache());
+        for (Ir.Condition condition : ((Ir.And) optimized.rules()[0].condition()).conditions()) {
+            if (condition instanceof Ir.Range(Ir.Expression expression, long _, long _) &&
+                    !(expression instanceof Ir.SelfState)) {
+                assertInstanceOf(Ir.SharedCount.class, expression);
+            }
+        }
+
+        // Both conditions of the first rule read the count once
+        CellQuery query = new CellQuery(compiled.indexCount());
+        query.set(Neighbors.SELF, 0, Block.STONE.stateId());
+        for (int i = 0; i < 3; i++) query.set(Neighbors.MOORE_3D.get(i), 0, Block.DIRT.stateId());
+        evaluate(optimized.rules(), optimized.cache(), query);
+        assertEquals(Neighbors.MOORE_3D.size(), query.reads);
+
+        // The cache is reset between cells, a cell never sees the count of the previous one
+        CellQuery crowded = new CellQuery(compiled.indexCount());
+        crowded.set(Neighbors.SELF, 0, Block.STONE.stateId());
+        for (int i = 0; i < 8; i++) crowded.set(Neighbors.MOORE_3D.get(i), 0, Block.DIRT.stateId());
+        compiled.compare(query);
+        compiled.compare(crowded);
+        compiled.compare(query);
+        compiled.compareRandom(Neighbors.MOORE_3D, 1000);
+    }
+
+    private static Ir.Condition blockRange(Block block) {
+        return new Ir.Range(new Ir.State(0, 0, 0, 0), block.stateId(), block.stateId());
+    }
+
+    private static int[] offsets(List<Point> points) {
+        int[] offsets = new int[points.size() * 3];
+        for (int i = 0; i < points.size(); i++) {
+            offsets[i * 3] = points.get(i).blockX();
+            offsets[i * 3 + 1] = points.get(i).blockY();
+            offsets[i * 3 + 2] = points.get(i).blockZ();
+        }
+        return offsets;
+    }
+
+    private record Compiled(Map<String, Integer> indexes, Ir.CompiledRule[] lowered, Optimizer.Optimized optimized) {
+        int index(String state) {
+            return indexes.get(state);
+        }
+
+        int indexCount() {
+            return indexes.size();
+        }
+
+        void compare(CellQuery query) {
+            assertEquals(evaluate(lowered, null, query), evaluate(optimized.rules(), optimized.cache(), query),
+                    query.toString());
+        }
+
+        /**
+         * Compares random cells, whose neighbors have random blocks and states.
+         */
+        void compareRandom(List<Point> neighbors, int cells) {
+            final Random random = new Random(11);
+            for (int i = 0; i < cells; i++) {
+                CellQuery query = new CellQuery(indexCount());
+                final float density = random.nextFloat();
+                for (Point point : neighbors) {
+                    if (random.nextFloat() < density) query.set(point, 0, BLOCKS[random.nextInt(BLOCKS.length)]);
+                }
+                query.set(Neighbors.SELF, 0, BLOCKS[random.nextInt(BLOCKS.length)]);
+                for (int index = 1; index < indexCount(); index++) query.set(Neighbors.SELF, index, random.nextInt(8));
+                compare(query);
+            }
+        }
+    }
+
+    private static Compiled compile(Program program) {
+        Map<String, Integer> indexes = new HashMap<>();
+        indexes.put(Automata.CellRule.BLOCK_STATE.name(), 0);
+        final List<String> names = program.variables().stream().map(Automata.CellRule.State::name).sorted().toList();
+        for (int i = 0; i < names.size(); i++) indexes.put(names.get(i), i + 1);
+        final List<Point> wake = RuleAnalysis.wakePoints(program.rules());
+        final Ir.CompiledRule[] lowered = Ir.lower(program.rules(), indexes::get, wake);
+        return new Compiled(indexes, lowered, Optimizer.optimize(Ir.lower(program.rules(), indexes::get, wake)));
+    }
+
+    /**
+     * Same as the general evaluator of programs, without delays.
+     */
+    private static List<Automata.CellRule.Action> evaluate(Ir.CompiledRule[] rules, Ir.CountCache cache,
+                                                           Automata.Query query) {
+        if (cache != null) cache.reset();
+        Int2LongMap block = null;
+        List<Point> wake = null;
+        for (Ir.CompiledRule rule : rules) {
+            if (!rule.condition().test(query, 0, 0, 0)) continue;
+            if (block == null) block = new Int2LongOpenHashMap();
+            wake = Ir.mergeWake(wake, rule.wake());
+            rule.apply(query, block);
+        }
+        return block != null ? List.of(Automata.CellRule.Action.UpdateState(block).withWakePoints(wake)) : null;
+    }
+
+    /**
+     * A query over a sparse set of cells, the others holding only zeros, counting the reads of the neighbors.
+     */
+    private static final class CellQuery implements Automata.Query {
+        private final Map<Point, long[]> cells = new HashMap<>();
+        private final long[] empty;
+        int reads;
+
+        CellQuery(int indexCount) {
+            this.empty = new long[indexCount];
+        }
+
+        void set(Point point, int index, long value) {
+            cells.computeIfAbsent(point, _ -> new long[empty.length])[index] = value;
+        }
+
+        private long[] at(int x, int y, int z) {
+            return cells.getOrDefault(new Vec(x, y, z), empty);
+        }
+
+        @Override
+        public int stateIndex(Automata.CellRule.State state) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long state(int index) {
+            return at(0, 0, 0)[index];
+        }
+
+        @Override
+        public long stateAt(int x, int y, int z, int index) {
+            if ((x | y | z) != 0) reads++;
+            return at(x, y, z)[index];
+        }
+
+        @Override
+        public long[] queryIndexes() {
+            return at(0, 0, 0).clone();
+        }
+
+        @Override
+        public long[] queryIndexes(int x, int y, int z) {
+            return at(x, y, z).clone();
+        }
+
+        @Override
+        public Map<String, Long> queryNames(int x, int y, int z) {
+            return Map.of();
+        }
+
+        @Override
+        public long random() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            cells.forEach((point, values) -> builder.append(point).append('=').append(Arrays.toString(values)).append(' '));
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package net.goldenstack.minestom_ca.test.backends;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
+import net.goldenstack.minestom_ca.backends.lazy.BoxSums;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class BoxSumsTest {
+    private static final Automata.Query.CellPredicate MATCHES = (query, x, y, z) -> query.stateAt(x, y, z, 0) == 1;
+
+    @Test
+    public void sphere() {
+        compare(Neighbors.boxes(Neighbors.sphere(5, false)));
+    }
+
+    @Test
+    public void diamond() {
+        compare(Neighbors.boxes(Neighbors.diamond(4, true)));
+    }
+
+    @Test
+    public void box() {
+        compare(Neighbors.boxes(Neighbors.box(8, false)));
+    }
+
+    @Test
+    public void invalidation() {
+        final List<Neighbors.Box> boxes = Neighbors.boxes(Neighbors.box(3, false));
+        BoxSums sums = new BoxSums(boxes, MATCHES);
+        StubQuery query = new StubQuery(0);
+        final int before = build(sums, query, 1);
+        assertEquals(query.countBoxes(boxes, MATCHES), before);
+
+        // The table is kept while the stamp is unchanged, the world is assumed not to change
+        query.seed = 1;
+        assertEquals(before, count(sums, query, 0, 1, 15, 0, 15));
+        // A new stamp counts directly until the table is rebuilt
+        assertEquals(-1, count(sums, query, 0, 2, 15, 0, 15));
+        assertEquals(query.countBoxes(boxes, MATCHES), build(sums, query, 2));
+        // So does another section
+        assertEquals(-1, count(sums, query, 1, 2, 0, 0, 0));
+    }
+
+    private static int build(BoxSums sums, StubQuery query, int stamp) {
+        for (int i = 0; i < 4096; i++) {
+            final int count = count(sums, query, 0, stamp, 15, 0, 15);
+            if (count >= 0) return count;
+        }
+        return fail("The table was never built");
+    }
+
+    /**
+     * Counts every cell of a section, including its edges, and checks both the direct counts before the build
+     * threshold and the table counts after it.
+     */
+    private static void compare(List<Neighbors.Box> boxes) {
+        BoxSums sums = new BoxSums(boxes, MATCHES);
+        StubQuery query = new StubQuery(42);
+        int direct = 0, table = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    final int count = count(sums, query, 0, 1, x, y, z);
+                    final int expected = query.countBoxes(boxes, MATCHES);
+                    if (count < 0) {
+                        direct++;
+                        // The table is never dropped once built within a stamp
+                        assertEquals(0, table);
+                    } else {
+                        table++;
+                        assertEquals(expected, count, x + ", " + y + ", " + z);
+                    }
+                }
+            }
+        }
+        assertTrue(direct > 0);
+        assertTrue(table > 0);
+        // Cells at the section edges read the halo
+        for (int[] cell : new int[][]{{0, 0, 0}, {15, 15, 15}, {0, 15, 7}, {15, 0, 0}}) {
+            final int count = count(sums, query, 0, 1, cell[0], cell[1], cell[2]);
+            assertEquals(query.countBoxes(boxes, MATCHES), count);
+        }
+    }
+
+    private static int count(BoxSums sums, StubQuery query, long section, int stamp, int x, int y, int z) {
+        // Section 0 spans 0-15 on every axis, section 1 spans 16-31 on x
+        query.move((int) section * 16 + x, y, z);
+        return sums.count(query, section, stamp, x, y, z);
+    }
+
+    /**
+     * A pseudo-random world, only the block state being readable.
+     */
+    private static final class StubQuery implements Automata.Query {
+        long seed;
+        private int x, y, z;
+
+        StubQuery(long seed) {
+            this.seed = seed;
+        }
+
+        void move(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private long value(int x, int y, int z) {
+            long hash = seed * 0x9E3779B97F4A7C15L + x * 73856093L + y * 19349663L + z * 83492791L;
+            hash ^= hash >>> 29;
+            hash *= 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 32;
+            return Math.floorMod(hash, 3) == 0 ? 1 : 0;
+        }
+
+        @Override
+        public int stateIndex(Automata.CellRule.State state) {
+            return 0;
+        }
+
+        @Override
+        public long state(int index) {
+            return value(x, y, z);
+        }
+
+        @Override
+        public long stateAt(int x, int y, int z, int index) {
+            return value(this.x + x, this.y + y, this.z + z);
+        }
+
+        @Override
+        public long[] queryIndexes() {
+            return new long[]{state(0)};
+        }
+
+        @Override
+        public long[] queryIndexes(int x, int y, int z) {
+            return new long[]{stateAt(x, y, z, 0)};
+        }
+
+        @Override
+        public Map<String, Long> queryNames(int x, int y, int z) {
+            return Map.of(Automata.CellRule.BLOCK_STATE.name(), stateAt(x, y, z, 0));
+        }
+
+        @Override
+        public long random() {
+            return seed ^ x * 73856093L ^ y * 19349663L ^ z * 83492791L;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package net.goldenstack.minestom_ca.test.backends;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.backends.headless.HeadlessWorld;
+import net.goldenstack.minestom_ca.lang.Program;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
+import net.goldenstack.minestom_ca.rules.RuleSamples;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class HeadlessWorldTest {
+
+    @Test
+    public void blinker() {
+        HeadlessWorld world = new HeadlessWorld(-8, 0, -8, 16, 1, 16, new RuleSamples.GameOfLife());
+        world.setBlock(0, 0, -1, Block.WHITE_WOOL);
+        world.setBlock(0, 0, 0, Block.WHITE_WOOL);
+        world.setBlock(0, 0, 1, Block.WHITE_WOOL);
+        world.handleChunkLoad(-1, -1);
+        world.handleChunkLoad(-1, 0);
+        world.handleChunkLoad(0, -1);
+        world.handleChunkLoad(0, 0);
+
+        final Automata.Metrics metrics = world.tick();
+        assertEquals(4, metrics.modifiedBlocks());
+        assertEquals(Block.WHITE_WOOL, world.getBlock(-1, 0, 0));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, 0));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(1, 0, 0));
+        assertEquals(Block.AIR, world.getBlock(0, 0, -1));
+        assertEquals(Block.AIR, world.getBlock(0, 0, 1));
+
+        world.tick();
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, -1));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, 1));
+        assertEquals(Block.AIR, world.getBlock(-1, 0, 0));
+        assertEquals(Block.AIR, world.getBlock(1, 0, 0));
+    }
+
+    @Test
+    public void programBlinker() {
+        final Automata.CellRule rule = Program.fromString("""
+                #white_wool & [!2]moore2d@#white_wool & [!3]moore2d@#white_wool -> #air
+                #air & [3]moore2d@#white_wool -> #white_wool
+                """).makeCellRule();
+        HeadlessWorld world = new HeadlessWorld(-8, 0, -8, 16, 1, 16, rule);
+        world.setBlock(0, 0, -1, Block.WHITE_WOOL);
+        world.setBlock(0, 0, 0, Block.WHITE_WOOL);
+        world.setBlock(0, 0, 1, Block.WHITE_WOOL);
+        world.handleChunkLoad(-1, -1);
+        world.handleChunkLoad(-1, 0);
+        world.handleChunkLoad(0, -1);
+        world.handleChunkLoad(0, 0);
+
+        world.tick();
+        assertEquals(Block.WHITE_WOOL, world.getBlock(-1, 0, 0));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, 0));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(1, 0, 0));
+        assertEquals(Block.AIR, world.getBlock(0, 0, -1));
+        assertEquals(Block.AIR, world.getBlock(0, 0, 1));
+    }
+
+    @Test
+    public void regions() {
+        final Automata.CellRule rule = Program.fromString("""
+                charge: 4
+                #diamond_block -> charge=3
+                """).makeCellRule();
+        final Automata.CellRule.State charge = new Automata.CellRule.State("charge", 4);
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 4, 1, 4, rule);
+        final Automata.Region region = new Automata.Region(1, 0, 1, 2, 1, 2);
+        final int[] blocks = {Block.STONE.stateId(), Block.DIRT.stateId(), Block.GLASS.stateId(), Block.SAND.stateId()};
+        world.placeRegion(region, blocks, Map.of(charge, new long[]{1, 2, 3, 15}));
+
+        long[] read = new long[region.volume()];
+        world.readRegion(region, Automata.CellRule.BLOCK_STATE, read);
+        for (int i = 0; i < blocks.length; i++) assertEquals(blocks[i], read[i]);
+        world.readRegion(region, charge, read);
+        assertArrayEquals(new long[]{1, 2, 3, 15}, read);
+
+        // Cells outside of the grid read as 0
+        read = new long[2];
+        world.readRegion(new Automata.Region(3, 0, 3, 2, 1, 1), Automata.CellRule.BLOCK_STATE, read);
+        assertArrayEquals(new long[]{0, 0}, read);
+        world.readRegion(new Automata.Region(2, 0, 2, 2, 1, 1), charge, read);
+        assertArrayEquals(new long[]{15, 0}, read);
+    }
+
+    @Test
+    public void placedComparedValue() {
+        final Automata.CellRule rule = Program.fromString("""
+                mode=2 -> mode=0
+                #dirt -> mode=1
+                """).makeCellRule();
+        final Automata.CellRule.State mode = new Automata.CellRule.State("mode", 2);
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 4, 1, 4, rule);
+        world.handlePlacement(1, 0, 1, Map.of(mode, 2L));
+        assertEquals(2, world.getState(1, 0, 1, mode));
+        world.tick();
+        assertEquals(0, world.getState(1, 0, 1, mode));
+    }
+
+    @Test
+    public void programDelay() {
+        final Automata.CellRule rule = Program.fromString("#dirt -> after 3 keep #grass_block").makeCellRule();
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 4, 1, 4, rule);
+        world.setBlock(0, 0, 0, Block.DIRT);
+        world.setBlock(1, 0, 0, Block.DIRT);
+        world.handleChunkLoad(0, 0);
+
+        world.tick();
+        assertEquals(Block.DIRT, world.getBlock(0, 0, 0));
+        // Changed while waiting, the scheduled result is dropped
+        world.setBlock(1, 0, 0, Block.STONE);
+        for (int i = 0; i < 4; i++) world.tick();
+        assertEquals(Block.GRASS_BLOCK, world.getBlock(0, 0, 0));
+        assertEquals(Block.STONE, world.getBlock(1, 0, 0));
+    }
+
+    @Test
+    public void programWideNeighborhood() {
+        final Automata.CellRule rule = Program.fromString("#air & [>3]box3@#stone -> #glass").makeCellRule();
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 16, 1, 16, rule);
+        final int[][] stones = {{2, 2}, {3, 5}, {5, 3}, {6, 6}, {9, 4}, {12, 12}, {13, 10}, {4, 12}};
+        for (int[] stone : stones) world.setBlock(stone[0], 0, stone[1], Block.STONE);
+        world.handleChunkLoad(0, 0);
+
+        world.tick();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                if (world.getBlock(x, 0, z) == Block.STONE) continue;
+                int count = 0;
+                for (int[] stone : stones) {
+                    if (Math.abs(stone[0] - x) <= 3 && Math.abs(stone[1] - z) <= 3) count++;
+                }
+                assertEquals(count > 3 ? Block.GLASS : Block.AIR, world.getBlock(x, 0, z), x + ", " + z);
+            }
+        }
+    }
+
+    @Test
+    public void wideNeighborhoodWake() {
+        final Automata.CellRule rule = Program.fromString("#air & [>3]box3@#stone -> #glass").makeCellRule();
+        final int[][] stones = {{0, 0}, {0, 4}, {4, 0}, {4, 4}};
+        // Loaded blocks
+        HeadlessWorld loaded = new HeadlessWorld(0, 0, 0, 16, 1, 16, rule);
+        for (int[] stone : stones) loaded.setBlock(stone[0], 0, stone[1], Block.STONE);
+        loaded.handleChunkLoad(0, 0);
+        loaded.tick();
+        // Placed blocks
+        HeadlessWorld placed = new HeadlessWorld(0, 0, 0, 16, 1, 16, rule);
+        for (int[] stone : stones) placed.handlePlacement(new Vec(stone[0], 0, stone[1]), Block.STONE);
+        placed.tick();
+
+        for (HeadlessWorld world : List.of(loaded, placed)) {
+            // Not adjacent to any stone, only woken by the reach of the neighborhood
+            assertEquals(Block.GLASS, world.getBlock(2, 0, 2));
+            for (int x = 1; x <= 3; x++) {
+                for (int z = 1; z <= 3; z++) assertEquals(Block.GLASS, world.getBlock(x, 0, z), x + ", " + z);
+            }
+            assertEquals(Block.AIR, world.getBlock(5, 0, 5));
+        }
+    }
+
+    @Test
+    public void composedWake() {
+        // The program only reads the cell itself, its writes must still wake the cells read by the Java rule
+        final Automata.CellRule rule = Automata.CellRule.rules(
+                Program.fromString("#dirt -> #white_wool").makeCellRule(),
+                new RuleSamples.GameOfLife());
+        HeadlessWorld world = new HeadlessWorld(-8, 0, -8, 16, 1, 16, rule);
+        world.setBlock(0, 0, -1, Block.DIRT);
+        world.setBlock(0, 0, 0, Block.DIRT);
+        world.setBlock(0, 0, 1, Block.DIRT);
+        world.handleChunkLoad(-1, -1);
+        world.handleChunkLoad(-1, 0);
+        world.handleChunkLoad(0, -1);
+        world.handleChunkLoad(0, 0);
+
+        world.tick();
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, -1));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, 1));
+        // The blinker only turns if the air cells around it were woken by the program
+        world.tick();
+        assertEquals(Block.WHITE_WOOL, world.getBlock(-1, 0, 0));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(0, 0, 0));
+        assertEquals(Block.WHITE_WOOL, world.getBlock(1, 0, 0));
+        assertEquals(Block.AIR, world.getBlock(0, 0, -1));
+        assertEquals(Block.AIR, world.getBlock(0, 0, 1));
+    }
+
+    @Test
+    public void randomTicks() {
+        final HeadlessWorld first = grassWorld(new RuleSamples.GrassGrow(), 42);
+        final HeadlessWorld second = grassWorld(new RuleSamples.GrassGrow(), 42);
+        first.tick();
+        second.tick();
+        final int grown = grassCount(first);
+        // Samples are drawn with replacement
+        assertTrue(grown >= 1 && grown <= 3, "grown " + grown);
+        for (int i = 0; i < 20; i++) {
+            first.tick();
+            second.tick();
+        }
+        assertTrue(grassCount(first) > grown);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) assertEquals(first.getBlock(x, 0, z), second.getBlock(x, 0, z));
+        }
+    }
+
+    @Test
+    public void programRandomTicks() {
+        final String source = "random #dirt -> #grass_block";
+        final HeadlessWorld first = grassWorld(Program.fromString(source).makeCellRule(), 42);
+        final HeadlessWorld second = grassWorld(Program.fromString(source).makeCellRule(), 42);
+        for (int i = 0; i < 20; i++) {
+            first.tick();
+            second.tick();
+        }
+        final int grown = grassCount(first);
+        assertTrue(grown > 3 && grown <= 60, "grown " + grown);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) assertEquals(first.getBlock(x, 0, z), second.getBlock(x, 0, z));
+        }
+    }
+
+    @Test
+    public void programRandomDelay() {
+        final String source = "#dirt -> after random 10 keep #grass_block";
+        final HeadlessWorld first = grassWorld(Program.fromString(source).makeCellRule(), 7);
+        final HeadlessWorld second = grassWorld(Program.fromString(source).makeCellRule(), 7);
+        first.setRandomTicks(0, 7);
+        second.setRandomTicks(0, 7);
+        final int[] counts = new int[14];
+        for (int i = 0; i < counts.length; i++) {
+            first.tick();
+            second.tick();
+            counts[i] = grassCount(first);
+            // Waits only depend on the seed, the position and the generation
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) assertEquals(first.getBlock(x, 0, z), second.getBlock(x, 0, z));
+            }
+        }
+        // Spread over the whole range of waits
+        assertTrue(counts[2] > 0 && counts[2] < 256, "after 3 ticks " + counts[2]);
+        assertEquals(256, counts[counts.length - 1]);
+    }
+
+    private static HeadlessWorld grassWorld(Automata.CellRule rule, long seed) {
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 16, 1, 16, rule);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) world.setBlock(x, 0, z, Block.DIRT);
+        }
+        world.setRandomTicks(3, seed);
+        world.handleChunkLoad(0, 0);
+        return world;
+    }
+
+    private static int grassCount(HeadlessWorld world) {
+        int count = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) if (world.getBlock(x, 0, z).stateId() == Block.GRASS_BLOCK.stateId()) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void profiledProgram() {
+        final RuleProfiler profiler = new RuleProfiler();
+        final Automata.CellRule rule = Program.fromString("""
+                #dirt -> #stone
+                #dirt -> charge=1
+                #stone -> after 2 #dirt
+                """).makeCellRule().profiled(profiler, "program");
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 1, 1, 1, rule);
+        world.setBlock(0, 0, 0, Block.DIRT);
+        world.handleChunkLoad(0, 0);
+        world.tick();
+
+        final List<RuleProfiler.Entry> entries = profiler.entries();
+        assertEquals(List.of("program/rule0", "program/rule1", "program/rule2", "program"),
+                entries.stream().map(RuleProfiler.Entry::name).toList());
+        // Both matching rules write to the same action, only the first one counts it
+        assertEntry(entries.get(0), 1, 1, 1);
+        assertEntry(entries.get(1), 1, 1, 0);
+        assertEntry(entries.get(2), 1, 0, 0);
+        assertEntry(entries.get(3), 1, 1, 1);
+    }
+
+    private static void assertEntry(RuleProfiler.Entry entry, long evaluations, long matches, long actions) {
+        assertEquals(evaluations, entry.evaluations(), entry.name());
+        assertEquals(matches, entry.matches(), entry.name());
+        assertEquals(actions, entry.actions(), entry.name());
+    }
+
+    @Test
+    public void notRegistered() {
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 4, 4, 4, new RuleSamples.GameOfLife());
+        assertThrows(IllegalArgumentException.class, () -> Automata.World.register(world));
+    }
+
+    @Test
+    public void idle() {
+        HeadlessWorld world = new HeadlessWorld(0, 0, 0, 4, 4, 4, new RuleSamples.GameOfLife());
+        world.handleChunkLoad(0, 0);
+        assertEquals(Automata.Metrics.EMPTY, world.tick());
+    }
+}
@@ -0,0 +1,77 @@
+package net.goldenstack.minestom_ca.test.backends;
+
+import net.goldenstack.minestom_ca.backends.lazy.LazyWorld;
+import net.goldenstack.minestom_ca.lang.Program;
+import net.goldenstack.minestom_ca.rules.RuleSamples;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class LazyWorldTest {
+
+    @Test
+    public void boundedGenerationCredit() {
+        final InstanceContainer instance = TestInstances.create(1);
+        // A blinker never settles, the world always has work left
+        instance.setBlock(0, 10, -1, Block.WHITE_WOOL);
+        instance.setBlock(0, 10, 0, Block.WHITE_WOOL);
+        instance.setBlock(0, 10, 1, Block.WHITE_WOOL);
+        LazyWorld world = new LazyWorld(instance, new RuleSamples.GameOfLife());
+        TestInstances.loadChunks(world, 1);
+        world.setGenerationRate(4, 1);
+        // Every tick runs a single generation before missing the budget
+        world.setTickBudget(1);
+        for (int i = 0; i < 50; i++) {
+            world.tick();
+            assertTrue(world.pendingGenerations() <= 4, "pending " + world.pendingGenerations());
+        }
+        // The generations still owed run once the budget allows it
+        world.setTickBudget(0);
+        world.tick();
+        assertEquals(0, world.pendingGenerations());
+        TestInstances.remove(instance);
+    }
+
+    @Test
+    public void budgetRotatesSections() {
+        final InstanceContainer instance = TestInstances.create(1);
+        // One block in each of the four loaded sections at y=0, away from their borders
+        final int[][] cells = {{8, 8}, {-8, 8}, {8, -8}, {-8, -8}};
+        LazyWorld world = new LazyWorld(instance, Program.fromString("#dirt -> #white_wool").makeCellRule());
+        TestInstances.loadChunks(world, 1);
+        world.tick();
+        for (int[] cell : cells) {
+            instance.setBlock(cell[0], 10, cell[1], Block.DIRT);
+            world.handlePlacement(new Vec(cell[0], 10, cell[1]), Block.DIRT);
+        }
+        // A single section per tick, the sections changed earlier being woken again must not be preferred
+        world.setTickBudget(1);
+        for (int i = 0; i < cells.length; i++) world.tick();
+        for (int[] cell : cells) {
+            assertEquals(Block.WHITE_WOOL, instance.getBlock(cell[0], 10, cell[1]), cell[0] + ", " + cell[1]);
+        }
+        TestInstances.remove(instance);
+    }
+
+    @Test
+    public void trackedBlocksGauge() {
+        final InstanceContainer instance = TestInstances.create(1);
+        instance.setBlock(0, 10, 0, Block.DIRT);
+        LazyWorld world = new LazyWorld(instance, Program.fromString("#dirt -> #white_wool").makeCellRule());
+        TestInstances.loadChunks(world, 1);
+        // The cells woken by the change, then nothing once they are processed, without reading in between
+        world.tick();
+        world.tick();
+        assertEquals(0, world.counters().trackedBlocks());
+        // The block itself is placed by the instance
+        instance.setBlock(0, 11, 0, Block.DIRT);
+        world.handlePlacement(new Vec(0, 11, 0), Block.DIRT);
+        world.tick();
+        assertEquals(27, world.counters().trackedBlocks());
+        TestInstances.remove(instance);
+    }
+}
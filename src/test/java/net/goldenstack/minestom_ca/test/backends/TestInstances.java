@@ -0,0 +1,44 @@
+package net.goldenstack.minestom_ca.test.backends;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+
+/**
+ * Instances for the tests of the backends backed by one.
+ */
+final class TestInstances {
+    private static boolean initialized = false;
+
+    /**
+     * Creates an instance with a stone floor up to y=10 and loads the chunks within {@code range} of the origin.
+     */
+    static synchronized InstanceContainer create(int range) {
+        if (!initialized) {
+            MinecraftServer.init();
+            initialized = true;
+        }
+        InstanceContainer instance = MinecraftServer.getInstanceManager().createInstanceContainer();
+        instance.setGenerator(unit -> unit.modifier().fillHeight(0, 10, Block.STONE));
+        instance.enableAutoChunkLoad(false);
+        for (int x = -range; x < range; x++) {
+            for (int z = -range; z < range; z++) {
+                instance.loadChunk(x, z).join();
+            }
+        }
+        return instance;
+    }
+
+    static void loadChunks(Automata.World world, int range) {
+        for (int x = -range; x < range; x++) {
+            for (int z = -range; z < range; z++) {
+                world.handleChunkLoad(x, z);
+            }
+        }
+    }
+
+    static void remove(InstanceContainer instance) {
+        MinecraftServer.getInstanceManager().unregisterInstance(instance);
+    }
+}
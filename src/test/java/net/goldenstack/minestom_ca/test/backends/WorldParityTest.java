@@ -0,0 +1,52 @@
+package net.goldenstack.minestom_ca.test.backends;
+
+import net.goldenstack.minestom_ca.backends.headless.HeadlessWorld;
+import net.goldenstack.minestom_ca.backends.lazy.LazyWorld;
+import net.goldenstack.minestom_ca.lang.Program;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the same program on both backends and compares their blocks generation by generation.
+ */
+public final class WorldParityTest {
+    private static final int Y = 10;
+    // Glider, blinker, toad and beehive, far enough from the border of the loaded chunks
+    private static final int[][] CELLS = {
+            {-10, -9}, {-9, -8}, {-11, -7}, {-10, -7}, {-9, -7},
+            {6, 5}, {6, 6}, {6, 7},
+            {-6, 6}, {-5, 6}, {-4, 6}, {-7, 7}, {-6, 7}, {-5, 7},
+            {5, -6}, {6, -7}, {7, -7}, {8, -6}, {6, -5}, {7, -5}
+    };
+
+    @Test
+    public void gameOfLife() {
+        final Program program = Program.fromFile(Path.of("rules", "game_of_life"));
+        final InstanceContainer instance = TestInstances.create(1);
+        HeadlessWorld headless = new HeadlessWorld(-16, Y, -16, 32, 1, 32, program.makeCellRule());
+        for (int[] cell : CELLS) {
+            instance.setBlock(cell[0], Y, cell[1], Block.WHITE_WOOL);
+            headless.setBlock(cell[0], Y, cell[1], Block.WHITE_WOOL);
+        }
+        LazyWorld lazy = new LazyWorld(instance, program.makeCellRule());
+        TestInstances.loadChunks(lazy, 1);
+        TestInstances.loadChunks(headless, 1);
+
+        for (int generation = 1; generation <= 16; generation++) {
+            headless.tick();
+            lazy.tick();
+            for (int x = -16; x < 16; x++) {
+                for (int z = -16; z < 16; z++) {
+                    assertEquals(headless.getBlock(x, Y, z).stateId(), instance.getBlock(x, Y, z).stateId(),
+                            "generation " + generation + " at " + x + ", " + z);
+                }
+            }
+        }
+        TestInstances.remove(instance);
+    }
+}
@@ -0,0 +1,64 @@
+package net.goldenstack.minestom_ca.test.lang;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.lang.Program;
+import net.goldenstack.minestom_ca.lang.Rule;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static net.goldenstack.minestom_ca.test.lang.TestUtils.parseRules;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class BlockPatternTest {
+
+    @Test
+    public void negatedProperty() {
+        final BitSet states = pattern("#redstone_wire[north=!side] -> #dirt");
+        for (Block state : Block.REDSTONE_WIRE.possibleStates()) {
+            assertEquals(!state.getProperty("north").equals("side"), states.get(state.stateId()), state.toString());
+        }
+        assertFalse(states.get(Block.DIRT.stateId()));
+    }
+
+    @Test
+    public void wildcards() {
+        final BitSet any = pattern("#redstone_wire[*] -> #dirt");
+        assertEquals(Block.REDSTONE_WIRE.possibleStates().size(), any.cardinality());
+        assertEquals(any, pattern("#redstone_wire[power=*] -> #dirt"));
+
+        final BitSet powered = pattern("#redstone_wire[power=15, north=*] -> #dirt");
+        for (Block state : Block.REDSTONE_WIRE.possibleStates()) {
+            assertEquals(state.getProperty("power").equals("15"), powered.get(state.stateId()), state.toString());
+        }
+    }
+
+    @Test
+    public void exactProperties() {
+        assertEquals(new Rule.Condition.Equal(Block.REDSTONE_WIRE.withProperty("power", "15")),
+                parseRules("#redstone_wire[power=15] -> #dirt").getFirst().condition());
+    }
+
+    @Test
+    public void invalidProperties() {
+        assertThrows(RuntimeException.class, () -> parseRules("#redstone_wire[color=!red] -> #dirt"));
+        assertThrows(RuntimeException.class, () -> parseRules("#redstone_wire[north=!sideways] -> #dirt"));
+    }
+
+    @Test
+    public void trackedStates() {
+        final Automata.CellRule rule = Program.fromString("""
+                #redstone_wire[north=!none] & north@#stone -> #redstone_wire[north=none]
+                """).makeCellRule();
+        assertTrue(rule.tracked(Block.REDSTONE_WIRE.withProperty("north", "up")));
+        assertTrue(rule.tracked(Block.STONE));
+        assertFalse(rule.tracked(Block.REDSTONE_WIRE.withProperty("north", "none")));
+        assertFalse(rule.tracked(Block.DIRT));
+    }
+
+    private static BitSet pattern(String rule) {
+        final Rule.Condition condition = parseRules(rule).getFirst().condition();
+        return assertInstanceOf(Rule.Condition.Pattern.class, condition).states();
+    }
+}
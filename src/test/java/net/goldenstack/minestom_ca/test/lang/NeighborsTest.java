@@ -0,0 +1,61 @@
+package net.goldenstack.minestom_ca.test.lang;
+
+import net.goldenstack.minestom_ca.Neighbors;
+import net.minestom.server.coordinate.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static net.goldenstack.minestom_ca.test.lang.TestUtils.parseRules;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class NeighborsTest {
+
+    @Test
+    public void shapes() {
+        assertEquals(124, Neighbors.box(2, false).size());
+        assertEquals(125, Neighbors.box(2, true).size());
+        assertEquals(Set.copyOf(Neighbors.MOORE_3D), Set.copyOf(Neighbors.box(1, false)));
+        assertEquals(Set.copyOf(Neighbors.NEUMANN_3D), Set.copyOf(Neighbors.diamond(1, false)));
+        assertEquals(Set.copyOf(Neighbors.NEUMANN_3D_SELF), Set.copyOf(Neighbors.sphere(1, true)));
+        assertEquals(24, Neighbors.diamond(2, false).size());
+    }
+
+    @Test
+    public void named() {
+        assertEquals(Neighbors.MOORE_2D, Neighbors.named("moore2d"));
+        assertEquals(Neighbors.box(3, true), Neighbors.named("box3self"));
+        assertEquals(Neighbors.sphere(16, false), Neighbors.named("sphere16"));
+        assertNull(Neighbors.named("box0"));
+        assertNull(Neighbors.named("box17"));
+        assertNull(Neighbors.named("cube3"));
+    }
+
+    @Test
+    public void boxes() {
+        for (List<Point> points : List.of(Neighbors.box(4, false), Neighbors.sphere(6, true), Neighbors.diamond(5, false))) {
+            final List<Neighbors.Box> boxes = Neighbors.boxes(points);
+            int volume = 0;
+            for (Neighbors.Box box : boxes) volume += box.volume();
+            assertEquals(points.size(), volume);
+            for (Point point : points) {
+                assertTrue(boxes.stream().anyMatch(box -> contains(box, point)), point.toString());
+            }
+        }
+        // A full box without its center splits around it
+        assertTrue(Neighbors.boxes(Neighbors.box(4, false)).size() <= 6);
+    }
+
+    @Test
+    public void parsing() {
+        assertDoesNotThrow(() -> parseRules("#air & [>3]sphere4@#stone -> #stone"));
+        assertThrows(RuntimeException.class, () -> parseRules("#air & [3]box99@#stone -> #stone"));
+    }
+
+    private static boolean contains(Neighbors.Box box, Point point) {
+        return point.blockX() >= box.minX() && point.blockX() <= box.maxX() &&
+                point.blockY() >= box.minY() && point.blockY() <= box.maxY() &&
+                point.blockZ() >= box.minZ() && point.blockZ() <= box.maxZ();
+    }
+}
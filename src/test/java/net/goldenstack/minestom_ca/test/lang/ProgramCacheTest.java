@@ -0,0 +1,84 @@
+package net.goldenstack.minestom_ca.test.lang;
+
+import net.goldenstack.minestom_ca.lang.Program;
+import net.goldenstack.minestom_ca.lang.ProgramCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class ProgramCacheTest {
+    private static final String SOURCE = """
+            charge: 0-15
+            #redstone_wire[north=!none] & [>2]sphere3@#stone -> after random 4 keep #redstone_wire[north=none]
+            #air & south@charge=3 -> charge=south@charge + 1 $powered=charge
+            !#dirt & [!1]moore2d@#grass_block -> ~north wake {0, 1, 0}
+            random #dirt & up@#air -> #grass_block
+            """;
+
+    @Test
+    public void roundTrip() throws IOException {
+        final Program program = Program.fromString(SOURCE);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ProgramCache.write(program, new DataOutputStream(bytes));
+        final Program read = ProgramCache.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(program, read);
+    }
+
+    @Test
+    public void reader() {
+        assertEquals(Program.fromString(SOURCE), Program.fromReader(new StringReader(SOURCE)));
+    }
+
+    @Test
+    public void load(@TempDir Path directory) throws IOException {
+        final Path first = directory.resolve("first");
+        final Path second = directory.resolve("second");
+        Files.writeString(first, "#dirt -> #stone");
+        Files.writeString(second, "#stone & [3]moore2d@#dirt -> #dirt");
+        final Path cache = directory.resolve("cache");
+        final ProgramCache programCache = new ProgramCache(cache);
+
+        final Program parsed = programCache.load(List.of(first, second));
+        assertEquals(Program.fromFiles(List.of(first, second)), parsed);
+        assertEquals(2, parsed.rules().size());
+        final Path entry;
+        try (var entries = Files.list(cache)) {
+            final List<Path> paths = entries.toList();
+            assertEquals(1, paths.size());
+            entry = paths.getFirst();
+        }
+        assertEquals(parsed, programCache.load(List.of(first, second)));
+
+        // Unchanged sources are read from the entry rather than parsed again
+        final Program marker = Program.fromString("#gravel -> #sand");
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(entry))) {
+            ProgramCache.write(marker, output);
+        }
+        assertEquals(marker, programCache.load(List.of(first, second)));
+
+        // Changed sources get their own entry
+        Files.writeString(first, "#dirt -> #gravel");
+        assertNotEquals(parsed, programCache.load(List.of(first, second)));
+        try (var entries = Files.list(cache)) {
+            assertEquals(2, entries.count());
+        }
+    }
+
+    @Test
+    public void unwritableCache(@TempDir Path directory) throws IOException {
+        final Path source = directory.resolve("source");
+        Files.writeString(source, "#dirt -> #stone");
+        // A file in place of the cache directory, entries can never be written
+        final Path cache = directory.resolve("cache");
+        Files.writeString(cache, "");
+        final ProgramCache programCache = new ProgramCache(cache);
+        assertEquals(Program.fromFile(source), programCache.load(List.of(source)));
+        assertEquals(Program.fromFile(source), programCache.load(List.of(source)));
+    }
+}
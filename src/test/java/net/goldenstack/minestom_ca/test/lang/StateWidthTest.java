@@ -0,0 +1,66 @@
+package net.goldenstack.minestom_ca.test.lang;
+
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.lang.Program;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class StateWidthTest {
+
+    @Test
+    public void inferredWidths() {
+        final Program program = Program.fromString("""
+                ww_state=1 -> ww_state=2
+                ww_state=2 -> ww_state=3
+                ww_state=3 & [>0]moore3d@ww_state=1 -> ww_state=1
+                #dirt -> count=moore3d@ww_state
+                count!0 -> count=count-1
+                generator=1 -> copy=ww_state
+                """);
+        assertEquals(2, width(program, "ww_state"));
+        assertEquals(2, width(program, "copy"));
+        // Subtraction may go negative, placement-only states are unbounded
+        assertEquals(64, width(program, "count"));
+        assertEquals(64, width(program, "generator"));
+    }
+
+    @Test
+    public void comparedLiterals() {
+        // Only 0 and 1 are assigned, but a placed 2 must still be tested
+        final Program program = Program.fromString("""
+                mode=2 -> mode=0
+                #dirt -> mode=1
+                [>0]moore2d@level=5 -> level=1
+                """);
+        assertEquals(2, width(program, "mode"));
+        assertEquals(3, width(program, "level"));
+    }
+
+    @Test
+    public void declaredWidths() {
+        final Program program = Program.fromString("""
+                small: 4
+                range: 0-5
+                small=1 -> range=5
+                """);
+        assertEquals(4, width(program, "small"));
+        assertEquals(3, width(program, "range"));
+    }
+
+    @Test
+    public void declaredWidthOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> Program.fromString("""
+                flag: 1
+                #dirt -> flag=2
+                """));
+    }
+
+    private static int width(Program program, String name) {
+        for (Automata.CellRule.State state : program.variables()) {
+            if (state.name().equals(name)) return state.bitSize();
+        }
+        throw new AssertionError("Missing state " + name);
+    }
+}
@@ -0,0 +1,264 @@
+package net.goldenstack.minestom_ca.test.lang;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import net.goldenstack.minestom_ca.Automata;
+import net.goldenstack.minestom_ca.Neighbors;
+import net.goldenstack.minestom_ca.lang.Program;
+import net.goldenstack.minestom_ca.lang.Rule;
+import net.goldenstack.minestom_ca.metrics.RuleProfiler;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+import net.minestom.server.instance.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that programs evaluate like a plain interpretation of their rules.
+ * <p>
+ * Programs whose conditions only test ranges use a precomputed transition table, profiled programs always use the
+ * general evaluator: both are compared with the interpretation.
+ */
+public final class TransitionTableTest {
+    private static final long WOOL = Block.WHITE_WOOL.stateId();
+
+    @Test
+    public void gameOfLife() {
+        final Evaluated evaluated = evaluated(Program.fromFile(Path.of("rules", "game_of_life")));
+        // Every self block of interest and every subset of the neighbors
+        for (long self : new long[]{Block.AIR.stateId(), WOOL, Block.STONE.stateId()}) {
+            for (int mask = 0; mask < 1 << 8; mask++) {
+                CellQuery query = evaluated.query();
+                query.set(Neighbors.SELF, 0, self);
+                for (int i = 0; i < 8; i++) {
+                    if ((mask & (1 << i)) != 0) query.set(Neighbors.MOORE_2D.get(i), 0, WOOL);
+                }
+                evaluated.compare(query);
+            }
+        }
+    }
+
+    @Test
+    public void wireworld() {
+        final Evaluated evaluated = evaluated(Program.fromFile(Path.of("rules", "wireworld")));
+        final int wwState = evaluated.index("ww_state");
+        final int generator = evaluated.index("generator");
+        // Every self state and every number of heads and generators around
+        for (long self : new long[]{Block.AIR.stateId(), WOOL}) {
+            for (int state = 0; state < 4; state++) {
+                for (int selfGenerator = 0; selfGenerator < 2; selfGenerator++) {
+                    for (int heads = 0; heads <= Neighbors.MOORE_3D.size(); heads++) {
+                        for (int generators = 0; generators <= Neighbors.NEUMANN_3D.size(); generators++) {
+                            CellQuery query = evaluated.query();
+                            query.set(Neighbors.SELF, 0, self);
+                            query.set(Neighbors.SELF, wwState, state);
+                            query.set(Neighbors.SELF, generator, selfGenerator);
+                            for (int i = 0; i < heads; i++) query.set(Neighbors.MOORE_3D.get(i), wwState, 1);
+                            for (int i = 0; i < generators; i++) query.set(Neighbors.NEUMANN_3D.get(i), generator, 1);
+                            evaluated.compare(query);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sharedCounts() {
+        // Both conditions read the same count, shared once optimized
+        final Evaluated evaluated = evaluated(Program.fromString("""
+                #stone & [>1]moore3d@#dirt & [<5]moore3d@#dirt -> #dirt
+                #dirt & [2]moore3d@#dirt -> #gravel
+                """));
+        final Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            CellQuery query = evaluated.query();
+            query.set(Neighbors.SELF, 0, random.nextBoolean() ? Block.STONE.stateId() : Block.DIRT.stateId());
+            final float density = random.nextFloat();
+            for (Point point : Neighbors.MOORE_3D) {
+                if (random.nextFloat() < density) query.set(point, 0, Block.DIRT.stateId());
+            }
+            evaluated.compare(query);
+        }
+    }
+
+    @Test
+    public void tooManyEntries() {
+        // 343 * 343 count combinations, left to the general evaluator
+        final Evaluated evaluated = evaluated(Program.fromString("#air & [>0]box3@#stone & [>0]box3@#dirt -> #glass"));
+        final Random random = new Random(3);
+        for (int i = 0; i < 50; i++) {
+            CellQuery query = evaluated.query();
+            final float density = random.nextFloat() * 0.02f;
+            for (Point point : Neighbors.box(3, false)) {
+                if (random.nextFloat() < density) query.set(point, 0, Block.STONE.stateId());
+                else if (random.nextFloat() < density) query.set(point, 0, Block.DIRT.stateId());
+            }
+            evaluated.compare(query);
+        }
+    }
+
+    /**
+     * A program ready to evaluate, plainly and profiled.
+     */
+    private record Evaluated(Program program, Map<String, Integer> indexes,
+                             Automata.CellRule rule, Automata.CellRule profiled) {
+        int index(String state) {
+            return indexes.get(state);
+        }
+
+        CellQuery query() {
+            return new CellQuery(indexes.size());
+        }
+
+        void compare(CellQuery query) {
+            final Int2LongMap expected = interpret(program.rules(), indexes, query);
+            final List<Automata.CellRule.Action> actions = rule.process(query);
+            assertEquals(expected, actions != null ? actions.getFirst().updatedStates() : null, query.toString());
+            assertEquals(actions, profiled.process(query), query.toString());
+        }
+    }
+
+    private static Evaluated evaluated(Program program) {
+        Map<String, Integer> indexes = new HashMap<>();
+        Map<Automata.CellRule.State, Integer> mapping = new HashMap<>();
+        indexes.put(Automata.CellRule.BLOCK_STATE.name(), 0);
+        final List<Automata.CellRule.State> states = program.variables().stream()
+                .sorted(Comparator.comparing(Automata.CellRule.State::name)).toList();
+        for (int i = 0; i < states.size(); i++) {
+            indexes.put(states.get(i).name(), i + 1);
+            mapping.put(states.get(i), i + 1);
+        }
+        final Automata.CellRule rule = program.makeCellRule();
+        rule.init(mapping);
+        final Automata.CellRule profiled = program.makeCellRule().profiled(new RuleProfiler(), "program");
+        profiled.init(mapping);
+        return new Evaluated(program, indexes, rule, profiled);
+    }
+
+    /**
+     * Interprets the rules on a cell, each matching rule writing its results in order.
+     *
+     * @return the written states, or null if no rule matches
+     */
+    private static Int2LongMap interpret(List<Rule> rules, Map<String, Integer> indexes, Automata.Query query) {
+        Int2LongMap block = null;
+        for (Rule rule : rules) {
+            if (!test(rule.condition(), indexes, query, 0, 0, 0)) continue;
+            if (block == null) block = new Int2LongOpenHashMap();
+            for (Rule.Result result : rule.results()) {
+                final Rule.Result.SetState set = (Rule.Result.SetState) result;
+                block.put((int) indexes.get(set.state()), evaluate(set.expression(), indexes, query, 0, 0, 0));
+            }
+        }
+        return block;
+    }
+
+    private static boolean test(Rule.Condition condition, Map<String, Integer> indexes, Automata.Query query,
+                                int x, int y, int z) {
+        return switch (condition) {
+            case Rule.Condition.And and -> and.conditions().stream().allMatch(c -> test(c, indexes, query, x, y, z));
+            case Rule.Condition.Not not -> !test(not.condition(), indexes, query, x, y, z);
+            case Rule.Condition.Equal equal ->
+                    evaluate(equal.first(), indexes, query, x, y, z) == evaluate(equal.second(), indexes, query, x, y, z);
+            case Rule.Condition.Pattern pattern -> pattern.states().get((int) query.stateAt(x, y, z, 0));
+        };
+    }
+
+    private static long evaluate(Rule.Expression expression, Map<String, Integer> indexes, Automata.Query query,
+                                 int x, int y, int z) {
+        return switch (expression) {
+            case Rule.Expression.Literal literal -> literal.value();
+            case Rule.Expression.State state -> query.stateAt(x, y, z, indexes.get(state.state()));
+            case Rule.Expression.NeighborState neighbor ->
+                    query.stateAt(x + neighbor.x(), y + neighbor.y(), z + neighbor.z(), indexes.get(neighbor.state()));
+            case Rule.Expression.NeighborsCount count -> {
+                int matching = 0;
+                for (Point offset : count.offsets()) {
+                    if (test(count.condition(), indexes, query,
+                            x + offset.blockX(), y + offset.blockY(), z + offset.blockZ())) matching++;
+                }
+                yield matching;
+            }
+            case Rule.Expression.Compare compare -> Long.signum(evaluate(compare.first(), indexes, query, x, y, z) -
+                    evaluate(compare.second(), indexes, query, x, y, z));
+            case Rule.Expression.Operation operation -> {
+                final long first = evaluate(operation.first(), indexes, query, x, y, z);
+                final long second = evaluate(operation.second(), indexes, query, x, y, z);
+                yield switch (operation.type()) {
+                    case ADD -> first + second;
+                    case SUBTRACT -> first - second;
+                    case MULTIPLY -> first * second;
+                    case DIVIDE -> first / second;
+                    case MODULO -> first % second;
+                };
+            }
+        };
+    }
+
+    /**
+     * A query over a sparse set of cells, the others holding only zeros.
+     */
+    private static final class CellQuery implements Automata.Query {
+        private final Map<Point, long[]> cells = new HashMap<>();
+        private final long[] empty;
+
+        CellQuery(int indexCount) {
+            this.empty = new long[indexCount];
+        }
+
+        void set(Point point, int index, long value) {
+            cells.computeIfAbsent(point, _ -> new long[empty.length])[index] = value;
+        }
+
+        private long[] at(int x, int y, int z) {
+            return cells.getOrDefault(new Vec(x, y, z), empty);
+        }
+
+        @Override
+        public int stateIndex(Automata.CellRule.State state) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long state(int index) {
+            return at(0, 0, 0)[index];
+        }
+
+        @Override
+        public long stateAt(int x, int y, int z, int index) {
+            return at(x, y, z)[index];
+        }
+
+        @Override
+        public long[] queryIndexes() {
+            return at(0, 0, 0).clone();
+        }
+
+        @Override
+        public long[] queryIndexes(int x, int y, int z) {
+            return at(x, y, z).clone();
+        }
+
+        @Override
+        public Map<String, Long> queryNames(int x, int y, int z) {
+            return Map.of();
+        }
+
+        @Override
+        public long random() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            cells.forEach((point, values) -> builder.append(point).append('=').append(Arrays.toString(values)).append(' '));
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.goldenstack.minestom_ca.test.lang;
+
+import net.goldenstack.minestom_ca.Neighbors;
+import net.goldenstack.minestom_ca.lang.RuleAnalysis;
+import net.minestom.server.coordinate.Point;
+import net.minestom.server.coordinate.Vec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static net.goldenstack.minestom_ca.test.lang.TestUtils.parseRules;
+import static org.junit.jupiter.api.Assertions.*;
+
+public final class WakePointsTest {
+
+    @Test
+    public void mirroredReads() {
+        // Reads the cell to the south, so a change wakes the cell to the north
+        final List<Point> wake = RuleAnalysis.wakePoints(parseRules("#air & south@push_north!0 -> ~south"));
+        assertEquals(Set.of(Vec.ZERO, Neighbors.NORTH), Set.copyOf(wake));
+        assertEquals(Vec.ZERO, wake.getFirst());
+    }
+
+    @Test
+    public void neighborhoodReads() {
+        final List<Point> wake = RuleAnalysis.wakePoints(parseRules("#air & [3]moore2d@#white_wool -> #white_wool"));
+        assertEquals(Set.copyOf(Neighbors.MOORE_2D_SELF), Set.copyOf(wake));
+    }
+
+    @Test
+    public void defaultWake() {
+        // Covers the cells read by composed rules, and the wider reads of the program
+        final List<Point> wake = RuleAnalysis.defaultWake(parseRules("#air & [>3]box2@#stone -> #glass"));
+        assertTrue(wake.containsAll(Neighbors.MOORE_3D_SELF));
+        assertTrue(wake.containsAll(Neighbors.box(2, true)));
+        assertEquals(Set.copyOf(Neighbors.MOORE_3D_SELF), Set.copyOf(RuleAnalysis.defaultWake(parseRules("#dirt -> #stone"))));
+    }
+
+    @Test
+    public void explicitWake() {
+        assertNull(parseRules("#dirt -> #stone").getFirst().wake());
+        assertEquals(List.of(), parseRules("#dirt -> #stone wake none").getFirst().wake());
+        assertEquals(Neighbors.NEUMANN_3D_SELF, parseRules("#dirt -> #stone wake neumann3dself").getFirst().wake());
+        assertEquals(List.of(new Vec(0, 0, 0), new Vec(-1, 2, 0)),
+                parseRules("#dirt -> #stone wake {0, 0, 0} {-1, 2, 0}").getFirst().wake());
+        // A state named wake is still a result
+        assertNull(parseRules("#dirt -> wake=1").getFirst().wake());
+        assertThrows(RuntimeException.class, () -> parseRules("#dirt -> #stone wake unknown"));
+    }
+}